@@ -0,0 +1,31 @@
+package pl.radoslawornat.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Invalidation bus for a single node deployment, changes are only propagated to the local listeners.
+ */
+@Slf4j
+public class LocalQuotationInvalidationBus implements QuotationInvalidationBus {
+
+    private final List<QuotationInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String quotationId, long version) {
+        for (QuotationInvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidate(quotationId, version);
+            } catch (RuntimeException exc) {
+                log.error("Invalidation listener failed for quotation with id: {} due to: {}", quotationId, exc.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(QuotationInvalidationListener listener) {
+        listeners.add(listener);
+    }
+}
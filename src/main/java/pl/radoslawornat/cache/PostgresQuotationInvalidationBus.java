@@ -0,0 +1,152 @@
+package pl.radoslawornat.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Propagates invalidations to every node through Postgres NOTIFY/LISTEN.
+ * <p>
+ * Publishing runs {@code pg_notify} on the connection of the current transaction, so Postgres delivers the
+ * notification only once the write is committed. Every node keeps one dedicated connection (outside the pool)
+ * listening on the channel. Whenever that connection is (re)established the listeners are told to resync,
+ * because notifications sent while the node was not listening are lost.
+ */
+@Slf4j
+public class PostgresQuotationInvalidationBus implements QuotationInvalidationBus {
+
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final String PAYLOAD_SEPARATOR = ":";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private final List<QuotationInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    public PostgresQuotationInvalidationBus(JdbcTemplate jdbcTemplate, String url, String username, String password,
+                                            String channel, Duration pollTimeout, Duration reconnectDelay) {
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    @Override
+    public void publish(String quotationId, long version) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, quotationId + PAYLOAD_SEPARATOR + version);
+    }
+
+    @Override
+    public void subscribe(QuotationInvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listen, "quotation-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for quotation invalidations on channel: {}", channel);
+                resync();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException exc) {
+                if (running) {
+                    log.warn("Lost connection used to listen for quotation invalidations due to: {}", exc.getMessage());
+                    pauseBeforeReconnect();
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        int separatorIndex = payload.lastIndexOf(PAYLOAD_SEPARATOR);
+        if (separatorIndex < 0) {
+            log.warn("Ignoring malformed quotation invalidation: {}", payload);
+            return;
+        }
+        String quotationId = payload.substring(0, separatorIndex);
+        long version;
+        try {
+            version = Long.parseLong(payload.substring(separatorIndex + 1));
+        } catch (NumberFormatException exc) {
+            log.warn("Ignoring malformed quotation invalidation: {}", payload);
+            return;
+        }
+        for (QuotationInvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidate(quotationId, version);
+            } catch (RuntimeException exc) {
+                log.error("Invalidation listener failed for quotation with id: {} due to: {}", quotationId, exc.getMessage());
+            }
+        }
+    }
+
+    private void resync() {
+        for (QuotationInvalidationListener listener : listeners) {
+            try {
+                listener.onResync();
+            } catch (RuntimeException exc) {
+                log.error("Invalidation listener failed to resync due to: {}", exc.getMessage());
+            }
+        }
+    }
+
+    private void pauseBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
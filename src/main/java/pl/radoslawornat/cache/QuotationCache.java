@@ -0,0 +1,176 @@
+package pl.radoslawornat.cache;
+
+import pl.radoslawornat.model.response.QuotationResource;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Node-local cache of quotations by id.
+ * <p>
+ * Every entry carries the version it was read or written at. An invalidation leaves a tombstone with its version
+ * instead of simply removing the entry, so a concurrent reader that loaded an older row (e.g. from a lagging
+ * replica) cannot put it back afterwards. A tombstone only has to outlive such readers and expires after
+ * {@code tombstoneTtl}.
+ * <p>
+ * The cache holds at most {@code maxEntries} entries and tombstones. Ids are kept in a ring in the order they were
+ * admitted; when the cache is full a clock hand walks the ring, gives recently written or read entries a second
+ * chance and removes the first one that was not used since the last pass (CLOCK, an approximation of LRU that keeps
+ * reads free of locks). Expired tombstones and entries dropped by a resync are removed whenever the hand passes them.
+ */
+public class QuotationCache implements QuotationInvalidationListener {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> ring = new ConcurrentLinkedQueue<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final QuotationInvalidationBus invalidationBus;
+    private final int maxEntries;
+    private final long tombstoneTtlNanos;
+    private final LongSupplier nanoClock;
+
+    public QuotationCache(QuotationInvalidationBus invalidationBus, int maxEntries, Duration tombstoneTtl) {
+        this(invalidationBus, maxEntries, tombstoneTtl, System::nanoTime);
+    }
+
+    QuotationCache(QuotationInvalidationBus invalidationBus, int maxEntries, Duration tombstoneTtl,
+                   LongSupplier nanoClock) {
+        this.invalidationBus = invalidationBus;
+        this.maxEntries = maxEntries;
+        this.tombstoneTtlNanos = tombstoneTtl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(this);
+    }
+
+    public Optional<QuotationResource> get(String quotationId) {
+        Entry entry = entries.get(quotationId);
+        if (entry == null || entry.quotation == null || entry.generation != generation.get()) {
+            return Optional.empty();
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return Optional.of(entry.quotation);
+    }
+
+    public void put(QuotationResource quotation, long version) {
+        Entry newEntry = new Entry(quotation, version, generation.get(), Long.MAX_VALUE);
+        store(quotation.getId(), newEntry, true);
+    }
+
+    public void evict(String quotationId, long version) {
+        Entry tombstone = new Entry(null, version, generation.get(), nanoClock.getAsLong() + tombstoneTtlNanos);
+        store(quotationId, tombstone, false);
+    }
+
+    /**
+     * Drops every entry and tombstone at once; they are physically removed as the clock hand passes them.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void onInvalidate(String quotationId, long version) {
+        evict(quotationId, version);
+    }
+
+    @Override
+    public void onResync() {
+        clear();
+    }
+
+    /**
+     * An entry replaces a live one with the same or a newer version, a tombstone only with a newer one: a write
+     * publishes its invalidation before commit and puts the committed state with the same version afterwards.
+     */
+    private void store(String quotationId, Entry candidate, boolean replaceSameVersion) {
+        boolean[] admitted = new boolean[1];
+        entries.compute(quotationId, (id, current) -> {
+            if (current == null) {
+                admitted[0] = true;
+                return candidate;
+            }
+            if (isDead(current, nanoClock.getAsLong())) {
+                return candidate;
+            }
+            boolean newer = replaceSameVersion
+                    ? candidate.version >= current.version
+                    : candidate.version > current.version;
+            return newer ? candidate : current;
+        });
+        if (admitted[0]) {
+            ring.offer(quotationId);
+            sweep();
+        }
+    }
+
+    /**
+     * Moves the clock hand one step for every admitted id, so dead entries are reclaimed at the rate
+     * new ones arrive, and keeps moving it while the cache holds more than {@code maxEntries}.
+     */
+    private void sweep() {
+        advanceHand();
+        int steps = 0;
+        int maxSteps = 2 * entries.size() + 1;
+        while (entries.size() > maxEntries && steps++ < maxSteps) {
+            advanceHand();
+        }
+    }
+
+    /**
+     * Every id in the map is in the ring exactly once: ids are added when their mapping is created and
+     * mappings are removed only here, after their id was taken off the ring.
+     */
+    private void advanceHand() {
+        String quotationId = ring.poll();
+        if (quotationId == null) {
+            return;
+        }
+        Entry entry = entries.get(quotationId);
+        if (entry == null) {
+            return;
+        }
+        boolean full = entries.size() > maxEntries;
+        if ((isDead(entry, nanoClock.getAsLong()) || (full && !entry.referenced))
+                && entries.remove(quotationId, entry)) {
+            return;
+        }
+        entry.referenced = false;
+        ring.offer(quotationId);
+    }
+
+    private boolean isDead(Entry entry, long now) {
+        return entry.generation != generation.get() || (entry.quotation == null && now - entry.expiresAtNanos >= 0);
+    }
+
+    private static final class Entry {
+        private final QuotationResource quotation;
+        private final long version;
+        private final long generation;
+        private final long expiresAtNanos;
+        private volatile boolean referenced;
+
+        private Entry(QuotationResource quotation, long version, long generation, long expiresAtNanos) {
+            this.quotation = quotation;
+            this.version = version;
+            this.generation = generation;
+            this.expiresAtNanos = expiresAtNanos;
+            this.referenced = quotation != null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package pl.radoslawornat.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+public class QuotationCacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.cache.invalidation.mode", havingValue = "postgres")
+    public QuotationInvalidationBus postgresQuotationInvalidationBus(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            @Value("${quotations.cache.invalidation.channel}") String channel,
+            @Value("${quotations.cache.invalidation.poll-timeout}") Duration pollTimeout,
+            @Value("${quotations.cache.invalidation.reconnect-delay}") Duration reconnectDelay) {
+        return new PostgresQuotationInvalidationBus(jdbcTemplate,
+                dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword(),
+                channel, pollTimeout, reconnectDelay);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(QuotationInvalidationBus.class)
+    public QuotationInvalidationBus localQuotationInvalidationBus() {
+        return new LocalQuotationInvalidationBus();
+    }
+
+    @Bean
+    public QuotationCache quotationCache(QuotationInvalidationBus quotationInvalidationBus,
+                                         @Value("${quotations.cache.max-entries}") int maxEntries,
+                                         @Value("${quotations.cache.tombstone-ttl}") Duration tombstoneTtl) {
+        return new QuotationCache(quotationInvalidationBus, maxEntries, tombstoneTtl);
+    }
+}
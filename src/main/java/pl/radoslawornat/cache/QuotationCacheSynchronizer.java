@@ -0,0 +1,33 @@
+package pl.radoslawornat.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.radoslawornat.model.event.QuotationChangeType;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+
+@Component
+public class QuotationCacheSynchronizer {
+
+    private final QuotationInvalidationBus invalidationBus;
+    private final QuotationCache quotationCache;
+
+    public QuotationCacheSynchronizer(QuotationInvalidationBus invalidationBus, QuotationCache quotationCache) {
+        this.invalidationBus = invalidationBus;
+        this.quotationCache = quotationCache;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publishInvalidation(QuotationChangedEvent event) {
+        invalidationBus.publish(event.getQuotationId(), event.getVersion());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void refreshLocalEntry(QuotationChangedEvent event) {
+        if (event.getType() == QuotationChangeType.DELETED) {
+            quotationCache.evict(event.getQuotationId(), event.getVersion());
+        } else {
+            quotationCache.put(event.getQuotation(), event.getVersion());
+        }
+    }
+}
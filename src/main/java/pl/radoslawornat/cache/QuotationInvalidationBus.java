@@ -0,0 +1,8 @@
+package pl.radoslawornat.cache;
+
+public interface QuotationInvalidationBus {
+
+    void publish(String quotationId, long version);
+
+    void subscribe(QuotationInvalidationListener listener);
+}
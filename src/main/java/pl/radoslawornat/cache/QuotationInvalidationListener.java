@@ -0,0 +1,12 @@
+package pl.radoslawornat.cache;
+
+public interface QuotationInvalidationListener {
+
+    void onInvalidate(String quotationId, long version);
+
+    /**
+     * Called when invalidations may have been lost (e.g. after a reconnect),
+     * listeners must drop everything they hold.
+     */
+    void onResync();
+}
@@ -0,0 +1,68 @@
+package pl.radoslawornat.config.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import pl.radoslawornat.service.bulkhead.Bulkhead;
+
+import java.time.Duration;
+
+/**
+ * Separates the budgets of reads and writes of quotations. Every {@code QuotationService} bean is wrapped in
+ * bulkheads by {@link BulkheadPostProcessor}, whatever storage backs it. Unless
+ * {@code quotations.bulkhead.dedicated-pools} is off, each bulkhead also takes its connections to the primary
+ * database from a pool of its own, see {@link BulkheadDataSourcePostProcessor}.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "quotations.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+
+    public BulkheadConfig(@Value("${quotations.storage}") String storage,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+                          @Value("${quotations.bulkhead.read.threads}") int readThreads,
+                          @Value("${quotations.bulkhead.write.threads}") int writeThreads,
+                          @Value("${quotations.bulkhead.dedicated-pools}") boolean dedicatedPools) {
+        if ("jpa".equals(storage) && !dedicatedPools && readThreads + writeThreads > maximumPoolSize) {
+            log.warn("Read ({}) and write ({}) bulkhead threads exceed the {} connections of the shared pool, "
+                    + "a flood of one kind of operations can still take connections of the other",
+                    readThreads, writeThreads, maximumPoolSize);
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public Bulkhead readBulkhead(MeterRegistry meterRegistry,
+                                 @Value("${quotations.bulkhead.read.threads}") int threads,
+                                 @Value("${quotations.bulkhead.read.queue-capacity}") int queueCapacity,
+                                 @Value("${quotations.bulkhead.retry-after}") Duration retryAfter) {
+        Bulkhead bulkhead = new Bulkhead("read", threads, queueCapacity, retryAfter);
+        bulkhead.bindTo(meterRegistry);
+        return bulkhead;
+    }
+
+    @Bean(destroyMethod = "close")
+    public Bulkhead writeBulkhead(MeterRegistry meterRegistry,
+                                  @Value("${quotations.bulkhead.write.threads}") int threads,
+                                  @Value("${quotations.bulkhead.write.queue-capacity}") int queueCapacity,
+                                  @Value("${quotations.bulkhead.retry-after}") Duration retryAfter) {
+        Bulkhead bulkhead = new Bulkhead("write", threads, queueCapacity, retryAfter);
+        bulkhead.bindTo(meterRegistry);
+        return bulkhead;
+    }
+
+    @Bean
+    public static BulkheadPostProcessor bulkheadPostProcessor(BeanFactory beanFactory) {
+        return new BulkheadPostProcessor(beanFactory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.bulkhead.dedicated-pools", havingValue = "true", matchIfMissing = true)
+    public static BulkheadDataSourcePostProcessor bulkheadDataSourcePostProcessor(Environment environment) {
+        return new BulkheadDataSourcePostProcessor(environment);
+    }
+}
@@ -0,0 +1,33 @@
+package pl.radoslawornat.config.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+/**
+ * Replaces the pool of the primary database with a {@link BulkheadRoutingDataSource}. The read-only replica pool
+ * is left as it is, reads sent to the replica do not compete with writes for connections.
+ */
+public class BulkheadDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final Environment environment;
+
+    public BulkheadDataSourcePostProcessor(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource) || ((HikariDataSource) bean).isReadOnly()
+                || !"jpa".equals(environment.getProperty("quotations.storage", "jpa"))) {
+            return bean;
+        }
+        BulkheadRoutingDataSource routingDataSource = new BulkheadRoutingDataSource((HikariDataSource) bean, Map.of(
+                "read", environment.getRequiredProperty("quotations.bulkhead.read.threads", Integer.class),
+                "write", environment.getRequiredProperty("quotations.bulkhead.write.threads", Integer.class)));
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+}
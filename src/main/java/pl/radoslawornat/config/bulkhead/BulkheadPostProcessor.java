@@ -0,0 +1,31 @@
+package pl.radoslawornat.config.bulkhead;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.bulkhead.Bulkhead;
+import pl.radoslawornat.service.bulkhead.BulkheadQuotationService;
+
+/**
+ * Wraps the quotation service after its transactional proxy has been created, so every operation takes
+ * a thread of its bulkhead before it opens a transaction and borrows a connection.
+ * The bulkheads are looked up lazily, a post processor must not pull regular beans in early.
+ */
+public class BulkheadPostProcessor implements BeanPostProcessor {
+
+    private final BeanFactory beanFactory;
+
+    public BulkheadPostProcessor(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof QuotationService) || bean instanceof BulkheadQuotationService) {
+            return bean;
+        }
+        return new BulkheadQuotationService((QuotationService) bean,
+                beanFactory.getBean("readBulkhead", Bulkhead.class),
+                beanFactory.getBean("writeBulkhead", Bulkhead.class));
+    }
+}
@@ -0,0 +1,53 @@
+package pl.radoslawornat.config.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import pl.radoslawornat.service.bulkhead.Bulkhead;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives the operations of every bulkhead a connection pool of their own, as large as the bulkhead has threads,
+ * so reads holding all their connections on slow queries leave the connections of writes alone.
+ * Connections taken outside of bulkheads (migrations, the change feed, background jobs) come from the shared pool.
+ * The pools of the bulkheads copy the settings of the shared pool.
+ */
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final HikariDataSource sharedPool;
+    private final List<HikariDataSource> bulkheadPools = new ArrayList<>();
+
+    public BulkheadRoutingDataSource(HikariDataSource sharedPool, Map<String, Integer> threadsByBulkhead) {
+        this.sharedPool = sharedPool;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        threadsByBulkhead.forEach((bulkhead, threads) -> {
+            HikariDataSource pool = new HikariDataSource();
+            sharedPool.copyStateTo(pool);
+            pool.setPoolName((sharedPool.getPoolName() == null ? "quotations" : sharedPool.getPoolName())
+                    + "-" + bulkhead);
+            pool.setMaximumPoolSize(threads);
+            if (pool.getMinimumIdle() > threads) {
+                pool.setMinimumIdle(threads);
+            }
+            bulkheadPools.add(pool);
+            targetDataSources.put(bulkhead, pool);
+        });
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(sharedPool);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Bulkhead.current();
+    }
+
+    @Override
+    public void close() {
+        bulkheadPools.forEach(HikariDataSource::close);
+        sharedPool.close();
+    }
+}
@@ -0,0 +1,6 @@
+package pl.radoslawornat.config.datasource;
+
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
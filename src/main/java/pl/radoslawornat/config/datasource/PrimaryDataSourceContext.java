@@ -0,0 +1,42 @@
+package pl.radoslawornat.config.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread flag forcing read-only work back onto the primary datasource,
+ * e.g. for a client that has just written and must see its own changes.
+ */
+public final class PrimaryDataSourceContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private PrimaryDataSourceContext() {
+    }
+
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get();
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * Runs the operation against the primary and restores the flag of the caller afterwards.
+     */
+    public static <T> T callOnPrimary(Supplier<T> operation) {
+        boolean primaryRequired = isPrimaryRequired();
+        requirePrimary();
+        try {
+            return operation.get();
+        } finally {
+            if (!primaryRequired) {
+                clear();
+            }
+        }
+    }
+}
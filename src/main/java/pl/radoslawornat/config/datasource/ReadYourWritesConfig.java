@@ -0,0 +1,27 @@
+package pl.radoslawornat.config.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "quotations.datasource.replica.enabled", havingValue = "true")
+public class ReadYourWritesConfig implements WebMvcConfigurer {
+
+    private final Duration readYourWritesWindow;
+
+    public ReadYourWritesConfig(@Value("${quotations.datasource.replica.read-your-writes-window}")
+                                        Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(readYourWritesWindow))
+                .addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,80 @@
+package pl.radoslawornat.config.datasource;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Pins a client to the primary datasource for a short window after its own write,
+ * so it does not read stale data from a lagging replica. The window is kept in a cookie,
+ * which makes the safeguard work no matter which node serves the next request.
+ * The flag is reset before every request and whenever a request leaves its thread, also for asynchronous
+ * requests like change streams, whose completion callback runs on another thread.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String PRIMARY_UNTIL_COOKIE = "quotations-primary-until";
+
+    private final Duration readYourWritesWindow;
+
+    public ReadYourWritesInterceptor(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        PrimaryDataSourceContext.clear();
+        long now = System.currentTimeMillis();
+        if (isWrite(request)) {
+            Cookie cookie = new Cookie(PRIMARY_UNTIL_COOKIE, String.valueOf(now + readYourWritesWindow.toMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, readYourWritesWindow.getSeconds()));
+            response.addCookie(cookie);
+            PrimaryDataSourceContext.requirePrimary();
+        } else if (primaryUntil(request) > now) {
+            PrimaryDataSourceContext.requirePrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PrimaryDataSourceContext.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        PrimaryDataSourceContext.clear();
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    private long primaryUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0L;
+        }
+        return Arrays.stream(request.getCookies())
+                .filter(cookie -> PRIMARY_UNTIL_COOKIE.equals(cookie.getName()))
+                .map(Cookie::getValue)
+                .mapToLong(this::parseTimestamp)
+                .max()
+                .orElse(0L);
+    }
+
+    private long parseTimestamp(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException exc) {
+            return 0L;
+        }
+    }
+}
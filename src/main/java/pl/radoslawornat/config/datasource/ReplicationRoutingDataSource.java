@@ -0,0 +1,33 @@
+package pl.radoslawornat.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ * Has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * otherwise the connection is taken before the transaction is marked as read-only.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ReplicationRoutingDataSource(DataSource primaryDataSource, DataSource replicaDataSource) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(DataSourceRole.PRIMARY, primaryDataSource);
+        targetDataSources.put(DataSourceRole.REPLICA, replicaDataSource);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primaryDataSource);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !PrimaryDataSourceContext.isPrimaryRequired()) {
+            return DataSourceRole.REPLICA;
+        }
+        return DataSourceRole.PRIMARY;
+    }
+}
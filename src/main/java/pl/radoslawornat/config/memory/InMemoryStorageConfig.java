@@ -0,0 +1,34 @@
+package pl.radoslawornat.config.memory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.radoslawornat.repository.memory.InMemoryQuotationStore;
+import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.impl.InMemoryQuotationService;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "memory")
+public class InMemoryStorageConfig {
+
+    @Bean(destroyMethod = "close")
+    public InMemoryQuotationStore inMemoryQuotationStore(
+            @Value("${quotations.memory.log-path}") String logPath,
+            @Value("${quotations.memory.fsync}") boolean fsync,
+            @Value("${quotations.memory.compaction-interval}") Duration compactionInterval,
+            @Value("${quotations.memory.compaction-min-garbage}") long compactionMinGarbage) throws IOException {
+        return new InMemoryQuotationStore(Paths.get(logPath), fsync, compactionInterval, compactionMinGarbage);
+    }
+
+    @Bean
+    public QuotationService inMemoryQuotationService(InMemoryQuotationStore inMemoryQuotationStore,
+                                                     ApplicationEventPublisher eventPublisher) {
+        return new InMemoryQuotationService(inMemoryQuotationStore, eventPublisher);
+    }
+}
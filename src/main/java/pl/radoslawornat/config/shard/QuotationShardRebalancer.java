@@ -0,0 +1,122 @@
+package pl.radoslawornat.config.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.shard.QuotationShard;
+import pl.radoslawornat.repository.shard.QuotationShards;
+import pl.radoslawornat.repository.shard.ShardRouter;
+import pl.radoslawornat.repository.shard.ShardedQuotation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Moves quotations and uniqueness claims to the shards the router assigns them after shards have been added to
+ * {@code quotations.sharding.urls}, and drops claims left behind by interrupted writes. Rows are copied to their
+ * new shard before they are deleted from the old one, so an interrupted run can simply be started again.
+ * Meant to run while no other instance writes to the shards.
+ */
+@Slf4j
+public class QuotationShardRebalancer implements ApplicationRunner {
+
+    private final QuotationShards quotationShards;
+    private final ApplicationContext applicationContext;
+    private final int batchSize;
+    private final boolean exitAfterRebalance;
+
+    public QuotationShardRebalancer(QuotationShards quotationShards,
+                                    ApplicationContext applicationContext,
+                                    int batchSize,
+                                    boolean exitAfterRebalance) {
+        this.quotationShards = quotationShards;
+        this.applicationContext = applicationContext;
+        this.batchSize = batchSize;
+        this.exitAfterRebalance = exitAfterRebalance;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int movedQuotations = moveQuotations();
+        ClaimCounts claimCounts = moveClaims();
+        log.info("Rebalanced {} shards in {} ms: moved {} quotations and {} claims, dropped {} orphaned claims",
+                quotationShards.getShards().size(), (System.nanoTime() - start) / 1_000_000,
+                movedQuotations, claimCounts.moved, claimCounts.dropped);
+        if (exitAfterRebalance) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private int moveQuotations() {
+        int moved = 0;
+        for (QuotationShard source : quotationShards.getShards()) {
+            String afterId = "";
+            List<ShardedQuotation> batch;
+            do {
+                batch = source.findQuotationsAfter(afterId, batchSize);
+                for (ShardedQuotation quotation : batch) {
+                    QuotationShard target = quotationShards.shardOfQuotation(quotation.getId());
+                    if (target != source) {
+                        target.insert(quotation);
+                        source.delete(quotation.getId());
+                        moved++;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+        }
+        return moved;
+    }
+
+    /**
+     * Runs after the quotations have been moved, so a claim whose quotation cannot be found is really orphaned.
+     * So is a claim whose quotation has other content or author by now: its key is computed again from the row.
+     */
+    private ClaimCounts moveClaims() {
+        ClaimCounts counts = new ClaimCounts();
+        for (QuotationShard source : quotationShards.getShards()) {
+            String afterKey = "";
+            List<QuotationShard.Claim> batch;
+            do {
+                batch = source.findClaimsAfter(afterKey, batchSize);
+                Map<String, ShardedQuotation> quotations = quotationShards.findByIds(batch.stream()
+                        .map(QuotationShard.Claim::getQuotationId)
+                        .collect(Collectors.toList()));
+                for (QuotationShard.Claim claim : batch) {
+                    QuotationShard target = quotationShards.shardOfClaim(claim.getClaimKey());
+                    ShardedQuotation quotation = quotations.get(claim.getQuotationId());
+                    if (quotation == null || !claimKeyOf(quotation).equals(claim.getClaimKey())) {
+                        source.release(claim.getClaimKey(), claim.getQuotationId());
+                        counts.dropped++;
+                    } else if (target != source) {
+                        target.claim(claim.getClaimKey(), claim.getQuotationId());
+                        source.release(claim.getClaimKey(), claim.getQuotationId());
+                        counts.moved++;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    afterKey = batch.get(batch.size() - 1).getClaimKey();
+                }
+            } while (batch.size() == batchSize);
+        }
+        return counts;
+    }
+
+    private static String claimKeyOf(ShardedQuotation quotation) {
+        QuotationResource resource = quotation.getQuotation();
+        return ShardRouter.claimKey(resource.getContent(),
+                resource.getAuthor().getFirstName(), resource.getAuthor().getLastName());
+    }
+
+    private static final class ClaimCounts {
+        private int moved;
+        private int dropped;
+    }
+}
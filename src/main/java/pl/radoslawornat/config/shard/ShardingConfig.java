@@ -0,0 +1,65 @@
+package pl.radoslawornat.config.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.radoslawornat.repository.shard.QuotationShards;
+import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.impl.ShardedQuotationService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "sharded")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public QuotationShards quotationShards(@Value("${quotations.sharding.urls}") List<String> urls,
+                                           @Value("${quotations.sharding.username}") String username,
+                                           @Value("${quotations.sharding.password}") String password,
+                                           @Value("${quotations.sharding.pool-size}") int poolSize,
+                                           @Value("${quotations.sharding.scatter-threads}") int scatterThreads)
+            throws IOException {
+        List<DataSource> dataSources = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("quotation-shard-" + dataSources.size());
+            dataSource.setJdbcUrl(url.trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSources.add(dataSource);
+        }
+        QuotationShards quotationShards = new QuotationShards(dataSources, scatterThreads);
+        try {
+            quotationShards.createSchema();
+        } catch (RuntimeException exc) {
+            quotationShards.close();
+            throw exc;
+        }
+        return quotationShards;
+    }
+
+    @Bean
+    public QuotationService shardedQuotationService(QuotationShards quotationShards,
+                                                    ApplicationEventPublisher eventPublisher) {
+        return new ShardedQuotationService(quotationShards, eventPublisher);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.sharding.rebalance.enabled", havingValue = "true")
+    public QuotationShardRebalancer quotationShardRebalancer(
+            QuotationShards quotationShards,
+            ApplicationContext applicationContext,
+            @Value("${quotations.sharding.rebalance.batch-size}") int batchSize,
+            @Value("${quotations.sharding.rebalance.exit-after-rebalance}") boolean exitAfterRebalance) {
+        return new QuotationShardRebalancer(quotationShards, applicationContext, batchSize, exitAfterRebalance);
+    }
+}
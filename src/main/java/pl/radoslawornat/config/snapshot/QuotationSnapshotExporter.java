@@ -0,0 +1,81 @@
+package pl.radoslawornat.config.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.QuotationRepository;
+import pl.radoslawornat.repository.snapshot.QuotationSnapshotWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Exports all quotations into a snapshot file for read-only edge nodes. The quotations are read in batches
+ * by id within one repeatable read transaction, so the snapshot is consistent even while writes go on.
+ */
+@Slf4j
+public class QuotationSnapshotExporter implements ApplicationRunner {
+
+    private final QuotationRepository quotationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationContext applicationContext;
+    private final Path path;
+    private final int batchSize;
+    private final boolean exitAfterExport;
+
+    public QuotationSnapshotExporter(QuotationRepository quotationRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     ApplicationContext applicationContext,
+                                     Path path,
+                                     int batchSize,
+                                     boolean exitAfterExport) {
+        this.quotationRepository = quotationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
+        this.applicationContext = applicationContext;
+        this.path = path;
+        this.batchSize = batchSize;
+        this.exitAfterExport = exitAfterExport;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int exported = transactionTemplate.execute(status -> export());
+        log.info("Exported {} quotations to snapshot {} in {} ms", exported, path.toAbsolutePath(),
+                (System.nanoTime() - start) / 1_000_000);
+        if (exitAfterExport) {
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private int export() {
+        try (QuotationSnapshotWriter writer = new QuotationSnapshotWriter(path)) {
+            String afterId = "";
+            List<QuotationResource> batch;
+            do {
+                batch = quotationRepository.findQuotationResourcesAfter(afterId, PageRequest.of(0, batchSize));
+                for (QuotationResource quotation : batch) {
+                    writer.append(quotation);
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == batchSize);
+            writer.commit();
+            return writer.size();
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Cannot export quotations to snapshot " + path, exc);
+        }
+    }
+}
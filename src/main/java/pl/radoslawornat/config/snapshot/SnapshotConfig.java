@@ -0,0 +1,50 @@
+package pl.radoslawornat.config.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.radoslawornat.repository.QuotationRepository;
+import pl.radoslawornat.repository.snapshot.QuotationSnapshot;
+import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.impl.SnapshotQuotationService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Slf4j
+@Configuration
+public class SnapshotConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.storage", havingValue = "snapshot")
+    public QuotationSnapshot quotationSnapshot(@Value("${quotations.snapshot.path}") String path) throws IOException {
+        Path snapshotPath = Paths.get(path);
+        QuotationSnapshot quotationSnapshot = QuotationSnapshot.open(snapshotPath);
+        log.info("Mapped snapshot {} with {} quotations", snapshotPath.toAbsolutePath(), quotationSnapshot.size());
+        return quotationSnapshot;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.storage", havingValue = "snapshot")
+    public QuotationService snapshotQuotationService(QuotationSnapshot quotationSnapshot) {
+        return new SnapshotQuotationService(quotationSnapshot);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.snapshot.export.enabled", havingValue = "true")
+    public QuotationSnapshotExporter quotationSnapshotExporter(
+            QuotationRepository quotationRepository,
+            PlatformTransactionManager transactionManager,
+            ApplicationContext applicationContext,
+            @Value("${quotations.snapshot.path}") String path,
+            @Value("${quotations.snapshot.export.batch-size}") int batchSize,
+            @Value("${quotations.snapshot.export.exit-after-export}") boolean exitAfterExport) {
+        return new QuotationSnapshotExporter(quotationRepository, transactionManager, applicationContext,
+                Paths.get(path), batchSize, exitAfterExport);
+    }
+}
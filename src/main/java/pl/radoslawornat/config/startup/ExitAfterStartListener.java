@@ -0,0 +1,24 @@
+package pl.radoslawornat.config.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops the application right after the context is started. Used by the training run that records
+ * the classes loaded during startup for the class data sharing archive.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quotations.startup.exit-after-start", havingValue = "true")
+public class ExitAfterStartListener implements ApplicationListener<ApplicationStartedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        log.info("Application started, exiting as requested by quotations.startup.exit-after-start");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
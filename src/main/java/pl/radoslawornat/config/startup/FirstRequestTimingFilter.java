@@ -0,0 +1,34 @@
+package pl.radoslawornat.config.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs the time from JVM start until the first request has been served, i.e. the time-to-first-request
+ * that matters when new instances are started by the autoscaler.
+ */
+@Slf4j
+@Component
+public class FirstRequestTimingFilter extends OncePerRequestFilter {
+
+    private final AtomicBoolean firstRequestServed = new AtomicBoolean();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, response);
+        if (!firstRequestServed.get() && firstRequestServed.compareAndSet(false, true)) {
+            long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+            log.info("Served first request {} ms after JVM start", System.currentTimeMillis() - jvmStartTime);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pl.radoslawornat.config.startup;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.radoslawornat.cache.QuotationInvalidationBus;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans that must not be deferred when lazy initialization is on: migrations have to run before traffic
+     * is served and the invalidation bus has to listen from the start, or this node would miss evictions.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerQuotationBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class,
+                QuotationInvalidationBus.class);
+    }
+}
@@ -0,0 +1,52 @@
+package pl.radoslawornat.config.warmup;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of requests served within the first period after the application became ready.
+ * Comparing this timer between rollouts with and without warm-up shows the effect of the warm-up.
+ */
+public class FirstMinuteLatencyFilter extends OncePerRequestFilter {
+
+    private final Timer firstMinuteTimer;
+    private final long windowNanos;
+    private volatile long readyAtNanos;
+    private volatile boolean ready;
+
+    public FirstMinuteLatencyFilter(Timer firstMinuteTimer, Duration window) {
+        this.firstMinuteTimer = firstMinuteTimer;
+        this.windowNanos = window.toNanos();
+    }
+
+    public void markReady() {
+        readyAtNanos = System.nanoTime();
+        ready = true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (ready && start - readyAtNanos < windowNanos) {
+                firstMinuteTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+}
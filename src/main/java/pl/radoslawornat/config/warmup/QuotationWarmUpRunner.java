@@ -0,0 +1,117 @@
+package pl.radoslawornat.config.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.radoslawornat.controller.QuotationController;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.response.CustomHttpResponse;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.service.QuotationService;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Exercises the hot paths of the application before it reports readiness, so the JIT has compiled them
+ * by the time real traffic arrives. Runs as an {@link ApplicationRunner}, which Spring Boot calls before it
+ * switches the readiness state to accepting traffic.
+ * <p>
+ * Writes go through the regular service methods inside a transaction that is always rolled back, so neither
+ * the database nor the caches, the author dictionary or other nodes ever see the synthetic quotations.
+ * Nodes without a transaction manager (read-only snapshot storage) warm up the read path only.
+ */
+@Slf4j
+public class QuotationWarmUpRunner implements ApplicationRunner {
+
+    private static final String WARM_UP_CONTENT = "Warm-up quotation %d, it is always rolled back.";
+
+    private final QuotationController quotationController;
+    private final QuotationService quotationService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int iterations;
+    private final int pageSize;
+    private final Duration maxDuration;
+
+    public QuotationWarmUpRunner(QuotationController quotationController,
+                                 QuotationService quotationService,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 int iterations,
+                                 int pageSize,
+                                 Duration maxDuration) {
+        this.quotationController = quotationController;
+        this.quotationService = quotationService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        this.meterRegistry = meterRegistry;
+        this.iterations = iterations;
+        this.pageSize = pageSize;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Starting warm-up with {} iterations", iterations);
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int completedIterations = 0;
+        try {
+            while (completedIterations < iterations && System.nanoTime() < deadline) {
+                warmUpReadPath();
+                if (transactionTemplate != null) {
+                    warmUpWritePath(completedIterations);
+                }
+                completedIterations++;
+            }
+        } catch (RuntimeException | IOException exc) {
+            log.warn("Warm-up stopped after {} iterations due to: {}", completedIterations, exc.getMessage());
+        }
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("quotations.warmup.duration")
+                .description("Time spent warming up before reporting readiness")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(elapsed));
+        meterRegistry.counter("quotations.warmup.iterations").increment(completedIterations);
+        log.info("Warm-up finished after {} iterations in {} ms", completedIterations, Duration.ofNanos(elapsed).toMillis());
+    }
+
+    private void warmUpReadPath() throws JsonProcessingException {
+        ResponseEntity<?> response = quotationController.findAllQuotations(0, pageSize, null, null);
+        objectMapper.writeValueAsBytes(response.getBody());
+    }
+
+    private void warmUpWritePath(int iteration) throws IOException {
+        QuotationDto quotationDto = new QuotationDto(String.format(WARM_UP_CONTENT, iteration), new Author("Warm", "Up"));
+        byte[] requestBody = objectMapper.writeValueAsBytes(quotationDto);
+        QuotationDto deserializedDto = objectMapper.readValue(requestBody, QuotationDto.class);
+        validator.validate(deserializedDto);
+
+        QuotationResource updatedQuotation = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            QuotationResource savedQuotation = quotationService.saveQuotation(deserializedDto);
+            QuotationResource quotation = quotationService.updateQuotation(deserializedDto, savedQuotation.getId());
+            quotationService.deleteQuotationById(savedQuotation.getId());
+            return quotation;
+        });
+        objectMapper.writeValueAsBytes(updatedQuotation);
+        objectMapper.writeValueAsBytes(new CustomHttpResponse(
+                HttpStatus.OK.value(), HttpStatus.OK, HttpStatus.OK.getReasonPhrase(), "Warm-up"));
+    }
+}
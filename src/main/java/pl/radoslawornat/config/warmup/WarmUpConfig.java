@@ -0,0 +1,61 @@
+package pl.radoslawornat.config.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.radoslawornat.controller.QuotationController;
+import pl.radoslawornat.service.QuotationService;
+
+import javax.validation.Validator;
+import java.time.Duration;
+
+@Configuration
+public class WarmUpConfig {
+
+    private final FirstMinuteLatencyFilter firstMinuteLatencyFilter;
+
+    public WarmUpConfig(MeterRegistry meterRegistry,
+                        @Value("${quotations.warm-up.enabled}") boolean warmUpEnabled,
+                        @Value("${quotations.warm-up.latency-window}") Duration latencyWindow) {
+        Timer firstMinuteTimer = Timer.builder("quotations.requests.first-minute")
+                .description("Latency of API requests served right after the application became ready")
+                .tag("warm-up", warmUpEnabled ? "enabled" : "disabled")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.firstMinuteLatencyFilter = new FirstMinuteLatencyFilter(firstMinuteTimer, latencyWindow);
+    }
+
+    @Bean
+    public FilterRegistrationBean<FirstMinuteLatencyFilter> firstMinuteLatencyFilter() {
+        return new FilterRegistrationBean<>(firstMinuteLatencyFilter);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLatencyWindow() {
+        firstMinuteLatencyFilter.markReady();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "quotations.warm-up.enabled", havingValue = "true")
+    public QuotationWarmUpRunner quotationWarmUpRunner(QuotationController quotationController,
+                                                       QuotationService quotationService,
+                                                       ObjectMapper objectMapper,
+                                                       Validator validator,
+                                                       ObjectProvider<PlatformTransactionManager> transactionManager,
+                                                       MeterRegistry meterRegistry,
+                                                       @Value("${quotations.warm-up.iterations}") int iterations,
+                                                       @Value("${quotations.warm-up.page-size}") int pageSize,
+                                                       @Value("${quotations.warm-up.max-duration}") Duration maxDuration) {
+        return new QuotationWarmUpRunner(quotationController, quotationService, objectMapper, validator,
+                transactionManager.getIfAvailable(), meterRegistry, iterations, pageSize, maxDuration);
+    }
+}
@@ -0,0 +1,59 @@
+package pl.radoslawornat.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pl.radoslawornat.model.response.AuthorSuggestion;
+import pl.radoslawornat.model.response.CustomHttpResponse;
+import pl.radoslawornat.service.author.AuthorSuggester;
+
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static pl.radoslawornat.controller.ResponseHelper.createOkResponse;
+import static pl.radoslawornat.controller.WireFormats.APPLICATION_SMILE_VALUE;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/authors")
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class AuthorController {
+
+    private final AuthorSuggester authorSuggester;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public AuthorController(AuthorSuggester authorSuggester,
+                            @Value("${quotations.authors.suggest.default-limit}") int defaultLimit,
+                            @Value("${quotations.authors.suggest.max-limit}") int maxLimit) {
+        this.authorSuggester = authorSuggester;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @GetMapping(path = "/suggest", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<?> suggestAuthors(@RequestParam(name = "prefix") String prefix,
+                                            @RequestParam(name = "limit", required = false) Integer limit) {
+        int suggestionLimit = nonNull(limit) && limit > 0 ? limit : defaultLimit;
+        if (suggestionLimit > maxLimit) {
+            log.info("Attempt to retrieve more than {} author suggestions", maxLimit);
+            String responseMessage =
+                    String.format("Cannot suggest more than %s authors. Please pass the correct limit", maxLimit);
+            return response(BAD_REQUEST, responseMessage);
+        }
+        List<AuthorSuggestion> suggestions = authorSuggester.suggest(prefix, suggestionLimit);
+        return createOkResponse(suggestions);
+    }
+
+    private ResponseEntity<CustomHttpResponse> response(HttpStatus status, String message) {
+        CustomHttpResponse httpResponse = new CustomHttpResponse(
+                status.value(), status, status.getReasonPhrase().toUpperCase(), message);
+        return new ResponseEntity<>(httpResponse, status);
+    }
+}
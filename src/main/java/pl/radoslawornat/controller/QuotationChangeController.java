@@ -0,0 +1,79 @@
+package pl.radoslawornat.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.radoslawornat.model.response.CustomHttpResponse;
+import pl.radoslawornat.model.response.QuotationChangePage;
+import pl.radoslawornat.service.feed.QuotationChangeFeed;
+import pl.radoslawornat.service.feed.QuotationChangeStream;
+
+import static java.util.Objects.nonNull;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+import static pl.radoslawornat.controller.ResponseHelper.createOkResponse;
+import static pl.radoslawornat.controller.WireFormats.APPLICATION_SMILE_VALUE;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/quotations/changes")
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class QuotationChangeController {
+
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+    public static final String STREAM_PATH = "/api/quotations/changes/stream";
+
+    private final QuotationChangeFeed quotationChangeFeed;
+    private final QuotationChangeStream quotationChangeStream;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public QuotationChangeController(QuotationChangeFeed quotationChangeFeed,
+                                     QuotationChangeStream quotationChangeStream,
+                                     @Value("${quotations.changes.default-limit}") int defaultLimit,
+                                     @Value("${quotations.changes.max-limit}") int maxLimit) {
+        this.quotationChangeFeed = quotationChangeFeed;
+        this.quotationChangeStream = quotationChangeStream;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<?> findChanges(@RequestParam(name = "since", required = false, defaultValue = "0") long since,
+                                         @RequestParam(name = "limit", required = false) Integer limit) {
+        if (since < 0) {
+            return response(BAD_REQUEST, "Cursor cannot be negative. Please pass the nextCursor of a previous response");
+        }
+        int pageLimit = nonNull(limit) && limit > 0 ? limit : defaultLimit;
+        if (pageLimit > maxLimit) {
+            log.info("Attempt to retrieve more than {} quotation changes", maxLimit);
+            String responseMessage =
+                    String.format("Cannot retrieve more than %s quotation changes. Please pass the correct limit", maxLimit);
+            return response(BAD_REQUEST, responseMessage);
+        }
+        QuotationChangePage changes = quotationChangeFeed.changesSince(since, pageLimit);
+        return createOkResponse(changes);
+    }
+
+    /**
+     * Streams changes after the cursor, starting from {@code Last-Event-ID} when the client reconnects.
+     */
+    @GetMapping(path = "/stream", produces = TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(name = "since", required = false, defaultValue = "0") long since,
+                                    @RequestHeader(name = LAST_EVENT_ID, required = false) Long lastEventId) {
+        long cursor = nonNull(lastEventId) ? lastEventId : since;
+        return quotationChangeStream.subscribe(Math.max(0, cursor));
+    }
+
+    private ResponseEntity<CustomHttpResponse> response(HttpStatus status, String message) {
+        CustomHttpResponse httpResponse = new CustomHttpResponse(
+                status.value(), status, status.getReasonPhrase().toUpperCase(), message);
+        return new ResponseEntity<>(httpResponse, status);
+    }
+}
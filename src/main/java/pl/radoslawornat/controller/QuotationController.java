@@ -8,40 +8,58 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import pl.radoslawornat.model.dto.QuotationDto;
 import pl.radoslawornat.model.response.CustomHttpResponse;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
 import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
 import pl.radoslawornat.service.QuotationService;
 
 import javax.validation.Valid;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static pl.radoslawornat.controller.ResponseHelper.createCreatedResponse;
 import static pl.radoslawornat.controller.ResponseHelper.createOkResponse;
+import static pl.radoslawornat.controller.WireFormats.APPLICATION_SMILE_VALUE;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/quotations")
 public class QuotationController {
 
+    public static final String UNKNOWN_FIELDS =
+            "Cannot select fields: %s. Please pass a comma separated list of: id, content, author";
+    public static final String UNKNOWN_SORT = "Cannot sort by: %s. Please pass one of: id, created, author.lastName, "
+            + "author.firstName, optionally followed by ,asc or ,desc";
+
     private final QuotationService quotationService;
     private final int defaultSize;
     private final int maxQuotationsListSize;
     private final int minQuotationsListParamValue;
+    private final int maxLookupIds;
 
     public QuotationController(QuotationService quotationService,
                                @Value("${quotations.default-size}") int defaultSize,
                                @Value("${quotations.max-quotations-size}") int maxQuotationsListSize,
-                               @Value("${quotations.min-quotations-list-param-value}") int minQuotationsListParamValue) {
+                               @Value("${quotations.min-quotations-list-param-value}") int minQuotationsListParamValue,
+                               @Value("${quotations.max-lookup-ids}") int maxLookupIds) {
         this.quotationService = quotationService;
         this.defaultSize = defaultSize;
         this.maxQuotationsListSize = maxQuotationsListSize;
         this.minQuotationsListParamValue = minQuotationsListParamValue;
+        this.maxLookupIds = maxLookupIds;
     }
 
-    @GetMapping(produces = APPLICATION_JSON_VALUE)
+    @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public ResponseEntity<?> findAllQuotations(@RequestParam(name = "page", required = false, defaultValue = "0") int pageNumber,
-                                               @RequestParam(name = "size", required = false, defaultValue = "25") int pageSize) {
+                                               @RequestParam(name = "size", required = false, defaultValue = "25") int pageSize,
+                                               @RequestParam(name = "fields", required = false) String fields,
+                                               @RequestParam(name = "sort", required = false) String sort) {
         pageNumber = pageNumber < minQuotationsListParamValue ? minQuotationsListParamValue : pageNumber;
         pageSize = pageSize <= minQuotationsListParamValue ? defaultSize : pageSize;
         if (pageSize > maxQuotationsListSize) {
@@ -50,24 +68,75 @@ public class QuotationController {
                     String.format("Cannot retrieve more than %s quotations. Please pass the correct size", maxQuotationsListSize);
             return response(BAD_REQUEST, responseMessage);
         }
-        Page<QuotationResource> quotations = quotationService.listAllQuotations(pageNumber, pageSize);
+        Optional<Set<QuotationField>> selectedFields = QuotationField.parse(fields);
+        if (selectedFields.isEmpty()) {
+            return response(BAD_REQUEST, String.format(UNKNOWN_FIELDS, fields));
+        }
+        Optional<QuotationSort> selectedSort = QuotationSort.parse(sort);
+        if (selectedSort.isEmpty()) {
+            return response(BAD_REQUEST, String.format(UNKNOWN_SORT, sort));
+        }
+        Page<QuotationResource> quotations =
+                quotationService.listAllQuotations(pageNumber, pageSize, selectedFields.get(), selectedSort.get());
         return createOkResponse(quotations);
     }
 
-    @PostMapping(consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> saveQuotation(@Valid @RequestBody QuotationDto quotation) {
+    @GetMapping(params = "ids", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<?> findQuotationsByIds(@RequestParam(name = "ids") List<String> quotationIds,
+                                                 @RequestParam(name = "fields", required = false) String fields) {
+        if (quotationIds.isEmpty() || quotationIds.size() > maxLookupIds) {
+            log.info("Attempt to look up {} quotations", quotationIds.size());
+            String responseMessage =
+                    String.format("Cannot look up more than %s quotations at once. Please pass 1 to %s ids",
+                            maxLookupIds, maxLookupIds);
+            return response(BAD_REQUEST, responseMessage);
+        }
+        Optional<Set<QuotationField>> selectedFields = QuotationField.parse(fields);
+        if (selectedFields.isEmpty()) {
+            return response(BAD_REQUEST, String.format(UNKNOWN_FIELDS, fields));
+        }
+        QuotationLookupResult quotations = quotationService.getQuotationsByIds(quotationIds);
+        return createOkResponse(quotations.narrowTo(selectedFields.get()));
+    }
+
+    @GetMapping(path = "/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<?> findQuotation(@PathVariable("id") String quotationId,
+                                           @RequestParam(name = "fields", required = false) String fields) {
+        Optional<Set<QuotationField>> selectedFields = QuotationField.parse(fields);
+        if (selectedFields.isEmpty()) {
+            return response(BAD_REQUEST, String.format(UNKNOWN_FIELDS, fields));
+        }
+        QuotationResource quotation = quotationService.getQuotationById(quotationId);
+        return createOkResponse(quotation.narrowTo(selectedFields.get()));
+    }
+
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ResponseEntity<?> saveQuotation(@Valid @RequestBody QuotationDto quotation,
+                                           @RequestParam(name = "fields", required = false) String fields) {
+        Optional<Set<QuotationField>> selectedFields = QuotationField.parse(fields);
+        if (selectedFields.isEmpty()) {
+            return response(BAD_REQUEST, String.format(UNKNOWN_FIELDS, fields));
+        }
         QuotationResource quotationToSave = quotationService.saveQuotation(quotation);
-        return createCreatedResponse(quotationToSave);
+        return createCreatedResponse(quotationToSave.narrowTo(selectedFields.get()));
     }
 
-    @PutMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
+    @PutMapping(path = "/{id}",
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public ResponseEntity<?> updateQuotation(@Valid @RequestBody QuotationDto quotation,
-                                             @PathVariable("id") String quotationId) {
+                                             @PathVariable("id") String quotationId,
+                                             @RequestParam(name = "fields", required = false) String fields) {
+        Optional<Set<QuotationField>> selectedFields = QuotationField.parse(fields);
+        if (selectedFields.isEmpty()) {
+            return response(BAD_REQUEST, String.format(UNKNOWN_FIELDS, fields));
+        }
         QuotationResource updatedQuotation = quotationService.updateQuotation(quotation, quotationId);
-        return createOkResponse(updatedQuotation);
+        return createOkResponse(updatedQuotation.narrowTo(selectedFields.get()));
     }
 
-    @DeleteMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
+    @DeleteMapping(path = "/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public ResponseEntity<?> deleteQuotation(@PathVariable("id") String quotationId) {
         quotationService.deleteQuotationById(quotationId);
         return response(OK, String.format("Quotation with id: %s was successfully deleted", quotationId));
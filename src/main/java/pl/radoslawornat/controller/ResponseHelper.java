@@ -1,8 +1,6 @@
 package pl.radoslawornat.controller;
 
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.util.Objects;
@@ -24,8 +22,6 @@ public class ResponseHelper {
     }
 
     private static ResponseEntity<?> createResponse(Object body, HttpStatus httpStatus) {
-        HttpHeaders responseHeaders = new HttpHeaders();
-        responseHeaders.setContentType(MediaType.APPLICATION_JSON);
-        return new ResponseEntity<>(body, responseHeaders, httpStatus);
+        return new ResponseEntity<>(body, httpStatus);
     }
 }
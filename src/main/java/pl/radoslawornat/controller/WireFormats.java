@@ -0,0 +1,56 @@
+package pl.radoslawornat.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * Media types served by the quotations API. JSON stays the default, CBOR and Smile are
+ * offered to clients which ask for them explicitly in the {@code Accept} header.
+ */
+public final class WireFormats {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private WireFormats() {
+    }
+
+    /**
+     * Picks the format of an error body. Error responses set their content type explicitly, so
+     * unlike regular responses they always fall back to JSON instead of answering 406.
+     */
+    public static MediaType negotiate(String acceptHeader) {
+        if (!StringUtils.hasText(acceptHeader)) {
+            return APPLICATION_JSON;
+        }
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(acceptHeader);
+        } catch (InvalidMediaTypeException e) {
+            return APPLICATION_JSON;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptedTypes);
+        for (MediaType acceptedType : acceptedTypes) {
+            if (acceptedType.getQualityValue() == 0) {
+                continue;
+            }
+            if (acceptedType.isWildcardType() || acceptedType.isWildcardSubtype()
+                    || APPLICATION_JSON.equalsTypeAndSubtype(acceptedType)) {
+                return APPLICATION_JSON;
+            }
+            if (APPLICATION_CBOR.equalsTypeAndSubtype(acceptedType)) {
+                return APPLICATION_CBOR;
+            }
+            if (APPLICATION_SMILE.equalsTypeAndSubtype(acceptedType)) {
+                return APPLICATION_SMILE;
+            }
+        }
+        return APPLICATION_JSON;
+    }
+}
@@ -0,0 +1,86 @@
+package pl.radoslawornat.controller.admission;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit adjusted with AIMD from observed latency: every request completing under the latency
+ * threshold while the limit is in use raises the limit by one, a slower one multiplies it by the backoff ratio.
+ * Decreases happen at most once per threshold period, so a single burst of slow responses
+ * does not collapse the limit to its minimum.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits of " + name + " limiter must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio of " + name + " limiter must be between 0 and 1");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = new AtomicInteger(initialLimit);
+        this.lastDecreaseNanos = new AtomicLong(System.nanoTime() - latencyThresholdNanos);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            decreaseLimit();
+        } else if (inFlightBeforeRelease * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void decreaseLimit() {
+        long now = System.nanoTime();
+        long lastDecrease = lastDecreaseNanos.get();
+        if (now - lastDecrease < latencyThresholdNanos || !lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+            return;
+        }
+        int newLimit = limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+        log.info("Latency above threshold, {} concurrency limit lowered to {}", name, newLimit);
+    }
+}
@@ -0,0 +1,43 @@
+package pl.radoslawornat.controller.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import pl.radoslawornat.controller.QuotationChangeController;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "quotations.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final long retryAfterSeconds;
+
+    public AdmissionControlConfig(@Value("${quotations.admission.read.initial-limit}") int readInitialLimit,
+                                  @Value("${quotations.admission.read.min-limit}") int readMinLimit,
+                                  @Value("${quotations.admission.read.max-limit}") int readMaxLimit,
+                                  @Value("${quotations.admission.read.latency-threshold}") Duration readLatencyThreshold,
+                                  @Value("${quotations.admission.write.initial-limit}") int writeInitialLimit,
+                                  @Value("${quotations.admission.write.min-limit}") int writeMinLimit,
+                                  @Value("${quotations.admission.write.max-limit}") int writeMaxLimit,
+                                  @Value("${quotations.admission.write.latency-threshold}") Duration writeLatencyThreshold,
+                                  @Value("${quotations.admission.backoff-ratio}") double backoffRatio,
+                                  @Value("${quotations.admission.retry-after}") Duration retryAfter) {
+        this.readLimiter = new AdaptiveConcurrencyLimiter("read", readInitialLimit, readMinLimit, readMaxLimit,
+                readLatencyThreshold, backoffRatio);
+        this.writeLimiter = new AdaptiveConcurrencyLimiter("write", writeInitialLimit, writeMinLimit, writeMaxLimit,
+                writeLatencyThreshold, backoffRatio);
+        this.retryAfterSeconds = Math.max(1, retryAfter.getSeconds());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionControlInterceptor(readLimiter, writeLimiter, retryAfterSeconds))
+                .addPathPatterns("/api/quotations", "/api/quotations/**")
+                .excludePathPatterns(QuotationChangeController.STREAM_PATH);
+    }
+}
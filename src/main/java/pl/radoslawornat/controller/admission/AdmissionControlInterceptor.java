@@ -0,0 +1,59 @@
+package pl.radoslawornat.controller.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.HandlerInterceptor;
+import pl.radoslawornat.model.exception.QuotationServiceOverloadedException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Slf4j
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    public static final String SERVICE_OVERLOADED = "Service is overloaded. Please retry in %s seconds";
+
+    private static final String LIMITER_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".limiter";
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final long retryAfterSeconds;
+
+    public AdmissionControlInterceptor(AdaptiveConcurrencyLimiter readLimiter,
+                                       AdaptiveConcurrencyLimiter writeLimiter,
+                                       long retryAfterSeconds) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AdaptiveConcurrencyLimiter limiter = isRead(request) ? readLimiter : writeLimiter;
+        if (!limiter.tryAcquire()) {
+            log.debug("Rejecting {} {}, {} limit of {} reached",
+                    request.getMethod(), request.getRequestURI(), limiter.getName(), limiter.getLimit());
+            throw new QuotationServiceOverloadedException(
+                    String.format(SERVICE_OVERLOADED, retryAfterSeconds), retryAfterSeconds);
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        AdaptiveConcurrencyLimiter limiter = (AdaptiveConcurrencyLimiter) request.getAttribute(LIMITER_ATTRIBUTE);
+        if (limiter == null) {
+            return;
+        }
+        request.removeAttribute(LIMITER_ATTRIBUTE);
+        long start = (long) request.getAttribute(START_ATTRIBUTE);
+        limiter.release(System.nanoTime() - start);
+    }
+
+    private boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+}
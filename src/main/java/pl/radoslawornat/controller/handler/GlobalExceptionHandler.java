@@ -8,14 +8,19 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+import pl.radoslawornat.controller.WireFormats;
 import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
 import pl.radoslawornat.model.exception.QuotationNotFoundException;
+import pl.radoslawornat.model.exception.QuotationServiceOverloadedException;
+import pl.radoslawornat.model.exception.QuotationSortNotSupportedException;
+import pl.radoslawornat.model.exception.QuotationStorageReadOnlyException;
 import pl.radoslawornat.model.response.CustomHttpResponse;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import static org.springframework.http.HttpStatus.*;
 
@@ -27,13 +32,37 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
             "This request method is not allowed on this endpoint. Please send a %s request";
 
     @ExceptionHandler(value = QuotationAlreadyExistsException.class)
-    public ResponseEntity<CustomHttpResponse> quotationAlreadyExistsException(QuotationAlreadyExistsException exc) {
-        return createHttpResponse(BAD_REQUEST, exc.getMessage());
+    public ResponseEntity<CustomHttpResponse> quotationAlreadyExistsException(QuotationAlreadyExistsException exc,
+                                                                              WebRequest request) {
+        return createHttpResponse(BAD_REQUEST, exc.getMessage(), request);
     }
 
     @ExceptionHandler(value = QuotationNotFoundException.class)
-    public ResponseEntity<CustomHttpResponse> quotationNotFoundException(QuotationNotFoundException exc) {
-        return createHttpResponse(NOT_FOUND, exc.getMessage());
+    public ResponseEntity<CustomHttpResponse> quotationNotFoundException(QuotationNotFoundException exc,
+                                                                         WebRequest request) {
+        return createHttpResponse(NOT_FOUND, exc.getMessage(), request);
+    }
+
+    @ExceptionHandler(value = QuotationSortNotSupportedException.class)
+    public ResponseEntity<CustomHttpResponse> quotationSortNotSupportedException(
+            QuotationSortNotSupportedException exc, WebRequest request) {
+        return createHttpResponse(BAD_REQUEST, exc.getMessage(), request);
+    }
+
+    @ExceptionHandler(value = QuotationServiceOverloadedException.class)
+    public ResponseEntity<CustomHttpResponse> quotationServiceOverloadedException(
+            QuotationServiceOverloadedException exc, WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(exc.getRetryAfterSeconds()));
+        return createHttpResponse(SERVICE_UNAVAILABLE, exc.getMessage(), request, headers);
+    }
+
+    @ExceptionHandler(value = QuotationStorageReadOnlyException.class)
+    public ResponseEntity<CustomHttpResponse> quotationStorageReadOnlyException(QuotationStorageReadOnlyException exc,
+                                                                                WebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAllow(Set.of(HttpMethod.GET, HttpMethod.HEAD));
+        return createHttpResponse(METHOD_NOT_ALLOWED, exc.getMessage(), request, headers);
     }
 
     @ExceptionHandler(value = Exception.class)
@@ -47,17 +76,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                                                                          HttpHeaders headers,
                                                                          HttpStatus status,
                                                                          WebRequest request) {
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentType(negotiateContentType(request));
         HttpMethod httpSupportedMethod = Objects.requireNonNull(exc.getSupportedHttpMethods()).iterator().next();
-        ResponseEntity<CustomHttpResponse> httpResponse =
-                createHttpResponse(METHOD_NOT_ALLOWED, String.format(METHOD_IS_NOT_ALLOWED, httpSupportedMethod.name()));
+        ResponseEntity<CustomHttpResponse> httpResponse = createHttpResponse(METHOD_NOT_ALLOWED,
+                String.format(METHOD_IS_NOT_ALLOWED, httpSupportedMethod.name()), request);
         return new ResponseEntity<>(httpResponse.getBody(), headers, METHOD_NOT_ALLOWED);
     }
 
 
-    private ResponseEntity<CustomHttpResponse> createHttpResponse(HttpStatus httpStatus, String message) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    private ResponseEntity<CustomHttpResponse> createHttpResponse(HttpStatus httpStatus, String message,
+                                                                  WebRequest request) {
+        return createHttpResponse(httpStatus, message, request, new HttpHeaders());
+    }
+
+    private ResponseEntity<CustomHttpResponse> createHttpResponse(HttpStatus httpStatus, String message,
+                                                                  WebRequest request, HttpHeaders headers) {
+        headers.setContentType(negotiateContentType(request));
         CustomHttpResponse httpResponse =
                 new CustomHttpResponse(httpStatus.value(), httpStatus, httpStatus.getReasonPhrase(), message);
         return new ResponseEntity<>(httpResponse, headers, httpStatus);
@@ -65,7 +99,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     private ResponseEntity<Object> createJsonResponse(Exception e, WebRequest request) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentType(negotiateContentType(request));
         if (e instanceof ResponseStatusException) {
             Map<String, Object> exceptionBody = createExceptionBody(((ResponseStatusException) e).getStatus(),
                     ((ResponseStatusException) e).getReason(),
@@ -78,6 +112,10 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(unexpectedErrorBody, headers, status);
     }
 
+    private MediaType negotiateContentType(WebRequest request) {
+        return WireFormats.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
     private Map<String, Object> createExceptionBody(HttpStatus status, String message, String path) {
         Map<String, Object> exceptionBody = new LinkedHashMap<>();
         exceptionBody.put("timestamp", LocalDateTime.now());
@@ -1,24 +1,45 @@
 package pl.radoslawornat.model;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
-import javax.persistence.Embeddable;
+import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 
 @Getter
 @Setter
-@Embeddable
-@AllArgsConstructor
+@Entity
+@Table(name = "author",
+        uniqueConstraints = @UniqueConstraint(name = "uk_author_first_name_last_name",
+                columnNames = {"first_name", "last_name"}),
+        indexes = @Index(name = "idx_author_last_name_first_name", columnList = "last_name, first_name"))
 public class Author {
 
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonIgnore
+    private Long id;
+
     @NotBlank
+    @Column(name = "first_name", nullable = false)
     private String firstName;
 
     @NotBlank
+    @Column(name = "last_name", nullable = false)
     private String lastName;
 
     public Author() {
     }
+
+    public Author(String firstName, String lastName) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
+    public Author(Long id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
 }
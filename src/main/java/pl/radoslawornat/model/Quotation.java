@@ -1,5 +1,6 @@
 package pl.radoslawornat.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -7,8 +8,18 @@ import org.hibernate.annotations.GenericGenerator;
 import pl.radoslawornat.model.dto.QuotationDto;
 
 import javax.persistence.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_quotation_author_id_id", columnList = "author_id, id"),
+        @Index(name = "idx_quotation_created_at_id", columnList = "created_at, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_quotation_author_id_content_hash", columnNames = {"author_id", "content_hash"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,11 +33,53 @@ public class Quotation {
     @Column(name = "content", columnDefinition = "TEXT")
     private String content;
 
-    @Embedded
+    /**
+     * Backs the uniqueness of content per author, long contents exceed the btree row limit. Kept in line with
+     * the content by {@link #setContent}.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "content_hash", nullable = false, length = 32)
+    private String contentHash;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "author_id", nullable = false, foreignKey = @ForeignKey(name = "fk_quotation_author"))
     private Author author;
 
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private Long version;
+
     public Quotation(QuotationDto dto) {
-        this.content = dto.getContent();
+        setContent(dto.getContent());
         this.author = dto.getAuthor();
     }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.contentHash = contentHash(content);
+    }
+
+    /**
+     * Hex encoded md5 of the UTF-8 encoded content, the same as {@code md5(content)} of PostgreSQL.
+     */
+    public static String contentHash(String content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException("MD5 is not available", exc);
+        }
+        byte[] hash = digest.digest((content == null ? "" : content).getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            hex.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return hex.toString();
+    }
 }
@@ -0,0 +1,35 @@
+package pl.radoslawornat.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import pl.radoslawornat.model.event.QuotationChangeType;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Append-only log of quotation writes. {@code seq} orders the changes and is the cursor handed out to clients,
+ * deletions stay in the log as tombstones so mirrors learn about them. Rows are appended by
+ * {@link pl.radoslawornat.repository.QuotationChangeRepository#append}, which takes {@code seq} from
+ * {@link QuotationChangeSequence}.
+ */
+@Entity
+@Table(name = "quotation_change")
+@Getter
+@NoArgsConstructor
+public class QuotationChange {
+
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "quotation_id", nullable = false)
+    private String quotationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private QuotationChangeType type;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+}
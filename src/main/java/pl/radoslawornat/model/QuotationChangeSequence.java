@@ -0,0 +1,26 @@
+package pl.radoslawornat.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * Single row holding the last sequence number of the change log. Incrementing it locks the row until the write
+ * commits, so concurrent writes take and commit their sequence numbers in the same order.
+ */
+@Entity
+@Table(name = "quotation_change_sequence")
+@Getter
+@NoArgsConstructor
+public class QuotationChangeSequence {
+
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
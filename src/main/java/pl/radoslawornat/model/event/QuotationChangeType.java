@@ -0,0 +1,7 @@
+package pl.radoslawornat.model.event;
+
+public enum QuotationChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,40 @@
+package pl.radoslawornat.model.event;
+
+import lombok.Getter;
+import pl.radoslawornat.model.response.QuotationResource;
+
+/**
+ * Published by the service layer for every successful write. The {@code version} grows with every change
+ * of a quotation, so listeners can discard information older than what they already hold.
+ * {@code quotation} is the state after the change and is {@code null} for deletions.
+ * A deletion carries {@link #DELETED_VERSION}: quotation ids are never reused, so nothing can follow it.
+ */
+@Getter
+public final class QuotationChangedEvent {
+    public static final long DELETED_VERSION = Long.MAX_VALUE;
+
+    private final QuotationChangeType type;
+    private final String quotationId;
+    private final long version;
+    private final QuotationResource quotation;
+
+    private QuotationChangedEvent(QuotationChangeType type, String quotationId, long version,
+                                  QuotationResource quotation) {
+        this.type = type;
+        this.quotationId = quotationId;
+        this.version = version;
+        this.quotation = quotation;
+    }
+
+    public static QuotationChangedEvent created(QuotationResource quotation, long version) {
+        return new QuotationChangedEvent(QuotationChangeType.CREATED, quotation.getId(), version, quotation);
+    }
+
+    public static QuotationChangedEvent updated(QuotationResource quotation, long version) {
+        return new QuotationChangedEvent(QuotationChangeType.UPDATED, quotation.getId(), version, quotation);
+    }
+
+    public static QuotationChangedEvent deleted(String quotationId) {
+        return new QuotationChangedEvent(QuotationChangeType.DELETED, quotationId, DELETED_VERSION, null);
+    }
+}
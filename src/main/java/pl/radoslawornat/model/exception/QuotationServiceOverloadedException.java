@@ -0,0 +1,15 @@
+package pl.radoslawornat.model.exception;
+
+public class QuotationServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public QuotationServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
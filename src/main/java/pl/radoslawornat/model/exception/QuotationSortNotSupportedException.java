@@ -0,0 +1,8 @@
+package pl.radoslawornat.model.exception;
+
+public class QuotationSortNotSupportedException extends RuntimeException {
+
+    public QuotationSortNotSupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package pl.radoslawornat.model.exception;
+
+public class QuotationStorageReadOnlyException extends RuntimeException {
+
+    public QuotationStorageReadOnlyException(String message) {
+        super(message);
+    }
+}
@@ -12,6 +12,13 @@ public class CustomIdGenerator implements IdentifierGenerator {
     @Override
     public Serializable generate(SharedSessionContractImplementor sharedSessionContractImplementor, Object o)
             throws HibernateException {
+        return nextId();
+    }
+
+    /**
+     * Id for quotations inserted without going through the persistence context.
+     */
+    public static String nextId() {
         return UUID.randomUUID().toString();
     }
 }
@@ -1,18 +1,16 @@
 package pl.radoslawornat.model.mapper;
 
-import ma.glasnost.orika.MapperFactory;
-import ma.glasnost.orika.impl.ConfigurableMapper;
 import org.springframework.stereotype.Component;
+import pl.radoslawornat.model.Author;
 import pl.radoslawornat.model.Quotation;
 import pl.radoslawornat.model.response.QuotationResource;
 
 @Component
-public class QuotationMapper extends ConfigurableMapper {
+public class QuotationMapper {
 
-    @Override
-    protected void configure(MapperFactory factory) {
-        factory.classMap(Quotation.class, QuotationResource.class)
-                .byDefault()
-                .register();
+    public QuotationResource map(Quotation quotation) {
+        Author author = quotation.getAuthor();
+        return new QuotationResource(quotation.getId(), quotation.getContent(),
+                author.getFirstName(), author.getLastName());
     }
 }
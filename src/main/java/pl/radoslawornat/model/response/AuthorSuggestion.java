@@ -0,0 +1,26 @@
+package pl.radoslawornat.model.response;
+
+import lombok.Getter;
+
+/**
+ * An author suggested for a typed name prefix, together with the number of quotations the author has.
+ */
+@Getter
+public final class AuthorSuggestion {
+    private final String firstName;
+    private final String lastName;
+    private final int quotationCount;
+
+    public AuthorSuggestion(String firstName, String lastName, int quotationCount) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.quotationCount = quotationCount;
+    }
+
+    /**
+     * Takes the count as returned by a {@code count} query.
+     */
+    public AuthorSuggestion(String firstName, String lastName, long quotationCount) {
+        this(firstName, lastName, Math.toIntExact(quotationCount));
+    }
+}
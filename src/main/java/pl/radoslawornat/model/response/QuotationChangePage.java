@@ -0,0 +1,22 @@
+package pl.radoslawornat.model.response;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A batch of the change feed. Clients pass {@code nextCursor} as {@code since} of the next request and keep
+ * asking while {@code hasMore} is set.
+ */
+@Getter
+public final class QuotationChangePage {
+    private final List<QuotationChangeResource> changes;
+    private final long nextCursor;
+    private final boolean hasMore;
+
+    public QuotationChangePage(List<QuotationChangeResource> changes, long nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+}
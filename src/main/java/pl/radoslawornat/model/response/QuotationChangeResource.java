@@ -0,0 +1,34 @@
+package pl.radoslawornat.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import pl.radoslawornat.model.event.QuotationChangeType;
+
+import java.time.Instant;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * One entry of the change feed. {@code quotation} is the current state of the quotation, it is left out
+ * for tombstones and for quotations deleted after the change (their tombstone follows later in the feed).
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class QuotationChangeResource {
+    private final long seq;
+    private final QuotationChangeType type;
+    private final Instant changedAt;
+    private final String quotationId;
+    private final QuotationResource quotation;
+
+    public QuotationChangeResource(long seq, QuotationChangeType type, Instant changedAt, String quotationId,
+                                   String content, String authorFirstName, String authorLastName) {
+        this.seq = seq;
+        this.type = type;
+        this.changedAt = changedAt;
+        this.quotationId = quotationId;
+        this.quotation = type != QuotationChangeType.DELETED && nonNull(content)
+                ? new QuotationResource(quotationId, content, authorFirstName, authorLastName)
+                : null;
+    }
+}
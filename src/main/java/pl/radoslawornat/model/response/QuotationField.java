@@ -0,0 +1,50 @@
+package pl.radoslawornat.model.response;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Fields of {@link QuotationResource} a client can select with the {@code fields} parameter.
+ * The id is always returned.
+ */
+public enum QuotationField {
+    ID("id"),
+    CONTENT("content"),
+    AUTHOR("author");
+
+    public static final Set<QuotationField> ALL = Collections.unmodifiableSet(EnumSet.allOf(QuotationField.class));
+
+    private final String fieldName;
+
+    QuotationField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Parses a comma separated list of field names, an empty value selects all fields.
+     * Returns an empty optional when the list contains an unknown field.
+     */
+    public static Optional<Set<QuotationField>> parse(String fieldNames) {
+        if (fieldNames == null || fieldNames.isBlank()) {
+            return Optional.of(ALL);
+        }
+        Set<QuotationField> fields = EnumSet.of(ID);
+        for (String fieldName : fieldNames.split(",")) {
+            Optional<QuotationField> field = Arrays.stream(values())
+                    .filter(value -> value.fieldName.equalsIgnoreCase(fieldName.trim()))
+                    .findFirst();
+            if (field.isEmpty()) {
+                return Optional.empty();
+            }
+            fields.add(field.get());
+        }
+        return Optional.of(fields);
+    }
+}
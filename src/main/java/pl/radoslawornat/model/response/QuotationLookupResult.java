@@ -0,0 +1,54 @@
+package pl.radoslawornat.model.response;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Quotations found by a batch lookup in the order of the requested ids, and the requested ids that do not exist.
+ */
+@Getter
+public final class QuotationLookupResult {
+    private final List<QuotationResource> quotations;
+    private final List<String> missingIds;
+
+    public QuotationLookupResult(List<QuotationResource> quotations, List<String> missingIds) {
+        this.quotations = quotations;
+        this.missingIds = missingIds;
+    }
+
+    /**
+     * Lists the quotations in the order the ids were requested, each id once, whatever order the storage found
+     * them in. {@code findQuotation} returns null for an id that does not exist.
+     */
+    public static QuotationLookupResult inRequestedOrder(Collection<String> requestedIds,
+                                                         Function<String, QuotationResource> findQuotation) {
+        List<QuotationResource> quotations = new ArrayList<>(requestedIds.size());
+        List<String> missingIds = new ArrayList<>();
+        for (String quotationId : new LinkedHashSet<>(requestedIds)) {
+            QuotationResource quotation = findQuotation.apply(quotationId);
+            if (quotation != null) {
+                quotations.add(quotation);
+            } else {
+                missingIds.add(quotationId);
+            }
+        }
+        return new QuotationLookupResult(quotations, missingIds);
+    }
+
+    public QuotationLookupResult narrowTo(Set<QuotationField> fields) {
+        if (fields.containsAll(QuotationField.ALL)) {
+            return this;
+        }
+        List<QuotationResource> narrowedQuotations = quotations.stream()
+                .map(quotation -> quotation.narrowTo(fields))
+                .collect(Collectors.toList());
+        return new QuotationLookupResult(narrowedQuotations, missingIds);
+    }
+}
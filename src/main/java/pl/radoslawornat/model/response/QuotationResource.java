@@ -1,9 +1,13 @@
 package pl.radoslawornat.model.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import pl.radoslawornat.model.Author;
 
+import java.util.Set;
+
 @Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public final class QuotationResource {
     private final String id;
     private final String content;
@@ -14,4 +18,20 @@ public final class QuotationResource {
         this.content = content;
         this.author = author;
     }
+
+    public QuotationResource(String id, String content, String authorFirstName, String authorLastName) {
+        this(id, content, new Author(authorFirstName, authorLastName));
+    }
+
+    /**
+     * Returns the resource limited to the selected fields, fields not selected are left out of the response.
+     */
+    public QuotationResource narrowTo(Set<QuotationField> fields) {
+        if (fields.containsAll(QuotationField.ALL)) {
+            return this;
+        }
+        return new QuotationResource(id,
+                fields.contains(QuotationField.CONTENT) ? content : null,
+                fields.contains(QuotationField.AUTHOR) ? author : null);
+    }
 }
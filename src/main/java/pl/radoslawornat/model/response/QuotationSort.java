@@ -0,0 +1,88 @@
+package pl.radoslawornat.model.response;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Order of listed quotations selected with the {@code sort} parameter, e.g. {@code created,desc}.
+ * Only keys backed by an index are accepted, so sorting never falls back to sorting the whole table.
+ * Every key ends with the id, which makes pages deterministic when the leading columns repeat.
+ */
+@Getter
+@EqualsAndHashCode
+public final class QuotationSort {
+
+    public static final QuotationSort DEFAULT = new QuotationSort(Key.ID, Sort.Direction.ASC);
+
+    private final Key key;
+    private final Sort.Direction direction;
+
+    public QuotationSort(Key key, Sort.Direction direction) {
+        this.key = key;
+        this.direction = direction;
+    }
+
+    public enum Key {
+        /**
+         * Primary key.
+         */
+        ID("id", "id"),
+        /**
+         * Index on (created_at, id).
+         */
+        CREATED("created", "createdAt", "id"),
+        /**
+         * Index on author (last_name, first_name) walked in order, quotations of each author read by the index
+         * on quotation (author_id, id).
+         */
+        AUTHOR_LAST_NAME("author.lastName", "author.lastName", "author.firstName", "id"),
+        /**
+         * Unique constraint on author (first_name, last_name), quotations of each author read as above.
+         */
+        AUTHOR_FIRST_NAME("author.firstName", "author.firstName", "author.lastName", "id");
+
+        private final String parameterName;
+        private final String[] properties;
+
+        Key(String parameterName, String... properties) {
+            this.parameterName = parameterName;
+            this.properties = properties;
+        }
+
+        public String getParameterName() {
+            return parameterName;
+        }
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, key.properties);
+    }
+
+    /**
+     * Parses a sort key optionally followed by {@code ,asc} or {@code ,desc}, an empty value selects the default
+     * order by id. Returns an empty optional for an unknown key or direction.
+     */
+    public static Optional<QuotationSort> parse(String sortParameter) {
+        if (sortParameter == null || sortParameter.isBlank()) {
+            return Optional.of(DEFAULT);
+        }
+        String[] parts = sortParameter.split(",", -1);
+        if (parts.length > 2) {
+            return Optional.empty();
+        }
+        Optional<Key> key = Arrays.stream(Key.values())
+                .filter(value -> value.parameterName.equalsIgnoreCase(parts[0].trim()))
+                .findFirst();
+        Optional<Sort.Direction> direction = parts.length == 1
+                ? Optional.of(Sort.Direction.ASC)
+                : Sort.Direction.fromOptionalString(parts[1].trim());
+        if (key.isEmpty() || direction.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new QuotationSort(key.get(), direction.get()));
+    }
+}
@@ -0,0 +1,35 @@
+package pl.radoslawornat.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.response.AuthorSuggestion;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AuthorRepository extends JpaRepository<Author, Long> {
+
+    Optional<Author> findByFirstNameAndLastName(String firstName, String lastName);
+
+    /**
+     * Inserts the author unless it already exists. Concurrent inserts of the same author wait for each other
+     * on the unique constraint instead of failing the transaction. The conflict target is left out, the name
+     * constraint is the only one an insert can violate and H2 in PostgreSQL mode accepts no target.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO author (first_name, last_name) VALUES (:firstName, :lastName) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    /**
+     * Counts the quotations of every author, authors without quotations included, in one grouped query.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new pl.radoslawornat.model.response.AuthorSuggestion(a.firstName, a.lastName, count(q.id)) "
+            + "from Author a left join Quotation q on q.author = a group by a.id, a.firstName, a.lastName")
+    List<AuthorSuggestion> countQuotationsPerAuthor();
+}
@@ -0,0 +1,59 @@
+package pl.radoslawornat.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pl.radoslawornat.model.QuotationChange;
+import pl.radoslawornat.model.response.QuotationChangeResource;
+
+import java.util.List;
+
+public interface QuotationChangeRepository extends JpaRepository<QuotationChange, Long> {
+
+    /**
+     * Creates the row of {@code quotation_change_sequence} unless it exists, continuing after the last change.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO quotation_change_sequence (id, last_seq) "
+            + "SELECT 1, COALESCE(MAX(seq), 0) FROM quotation_change "
+            + "WHERE NOT EXISTS (SELECT 1 FROM quotation_change_sequence)", nativeQuery = true)
+    int initializeSequence();
+
+    /**
+     * Takes the next sequence number. The sequence row stays locked until the calling transaction ends, so
+     * a write taking a higher number cannot commit before this one.
+     *
+     * @return {@code 0} if the sequence row does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE quotation_change_sequence SET last_seq = last_seq + 1 WHERE id = 1", nativeQuery = true)
+    int incrementSequence();
+
+    /**
+     * Appends a change with the sequence number taken by {@link #incrementSequence()} in the same transaction
+     * and the time of the database.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO quotation_change (seq, quotation_id, change_type, changed_at) "
+            + "SELECT last_seq, :quotationId, :type, CURRENT_TIMESTAMP FROM quotation_change_sequence WHERE id = 1",
+            nativeQuery = true)
+    int append(@Param("quotationId") String quotationId, @Param("type") String type);
+
+    /**
+     * Changes after the cursor together with the current state of the changed quotation. Sequence numbers
+     * commit in order, so a change that is not visible yet can only get a number above all returned ones.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new pl.radoslawornat.model.response.QuotationChangeResource("
+            + "c.seq, c.type, c.changedAt, c.quotationId, q.content, a.firstName, a.lastName) "
+            + "from QuotationChange c "
+            + "left join Quotation q on q.id = c.quotationId "
+            + "left join q.author a "
+            + "where c.seq > :since "
+            + "order by c.seq")
+    List<QuotationChangeResource> findChangesSince(@Param("since") long since, Pageable pageable);
+}
@@ -1,11 +1,115 @@
 package pl.radoslawornat.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import pl.radoslawornat.model.Author;
 import pl.radoslawornat.model.Quotation;
+import pl.radoslawornat.model.response.QuotationResource;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface QuotationRepository extends JpaRepository<Quotation, String> {
-    Optional<Quotation> findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-            String content, String firstName, String lastName);
+import static org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE;
+
+public interface QuotationRepository extends JpaRepository<Quotation, String>, QuotationRepositoryCustom {
+
+    /**
+     * Inserts the quotation unless a quotation with the same content and author exists, the last name compared
+     * ignoring case. The quotation starts at version {@code 0}, its timestamps are taken from the database clock.
+     * <p>
+     * The check does not lock: under READ COMMITTED two concurrent inserts of the same quotation both see no row.
+     * For the same author the unique constraint {@code uk_quotation_author_id_content_hash} makes the later
+     * one fail with a {@link org.springframework.dao.DataIntegrityViolationException}; authors differing only in
+     * the case of the last name are guarded by the check alone.
+     *
+     * @return {@code 0} if the quotation already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO quotation (id, content, content_hash, author_id, created_at, last_modified, version) "
+            + "SELECT :id, :content, :contentHash, :authorId, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0 "
+            + "WHERE NOT EXISTS (SELECT 1 FROM quotation q JOIN author a ON a.id = q.author_id "
+            + "WHERE q.content = :content AND a.first_name = :firstName AND upper(a.last_name) = upper(:lastName))",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") String quotationId,
+                       @Param("content") String content,
+                       @Param("contentHash") String contentHash,
+                       @Param("authorId") Long authorId,
+                       @Param("firstName") String firstName,
+                       @Param("lastName") String lastName);
+
+    /**
+     * Increments the version of the quotation, read the new one with {@link #findVersionById}
+     * in the same transaction.
+     *
+     * @return {@code 0} if there is no quotation with the given id
+     */
+    @Modifying
+    @Query("update Quotation q set q.content = :content, q.contentHash = :contentHash, q.author = :author, "
+            + "q.lastModified = CURRENT_TIMESTAMP, q.version = q.version + 1 where q.id = :id")
+    int updateQuotation(@Param("id") String quotationId,
+                        @Param("content") String content,
+                        @Param("contentHash") String contentHash,
+                        @Param("author") Author author);
+
+    @Query("select q.version from Quotation q where q.id = :id")
+    Optional<Long> findVersionById(@Param("id") String quotationId);
+
+    /**
+     * Deletes without loading the quotation first, unlike {@code deleteById}.
+     *
+     * @return {@code 0} if there is no quotation with the given id
+     */
+    @Modifying
+    @Query("delete from Quotation q where q.id = :id")
+    int deleteQuotation(@Param("id") String quotationId);
+
+    /**
+     * Selects straight into {@link QuotationResource}, so listed rows are neither managed
+     * by the persistence context nor snapshotted for dirty checking.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query(value = "select new pl.radoslawornat.model.response.QuotationResource("
+            + "q.id, q.content, q.author.firstName, q.author.lastName) from Quotation q",
+            countQuery = "select count(q) from Quotation q")
+    Page<QuotationResource> findAllQuotationResources(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select q from Quotation q join fetch q.author where q.id = :id")
+    Optional<Quotation> findWithAuthorById(@Param("id") String quotationId);
+
+    /**
+     * Resolves a batch of ids with a single {@code in} query, in no particular order.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("select q from Quotation q join fetch q.author where q.id in :ids")
+    List<Quotation> findWithAuthorByIdIn(@Param("ids") Collection<String> quotationIds);
+
+    /**
+     * Resolves a batch of ids straight into {@link QuotationResource}, in no particular order.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("select new pl.radoslawornat.model.response.QuotationResource("
+            + "q.id, q.content, q.author.firstName, q.author.lastName) from Quotation q where q.id in :ids")
+    List<QuotationResource> findQuotationResourcesByIdIn(@Param("ids") Collection<String> quotationIds);
+
+    /**
+     * Keyset pagination by id, reads every quotation once without the growing offsets of page based listing.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("select new pl.radoslawornat.model.response.QuotationResource("
+            + "q.id, q.content, q.author.firstName, q.author.lastName) from Quotation q "
+            + "where q.id > :afterId order by q.id")
+    List<QuotationResource> findQuotationResourcesAfter(@Param("afterId") String afterId, Pageable pageable);
 }
@@ -0,0 +1,17 @@
+package pl.radoslawornat.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.util.Set;
+
+public interface QuotationRepositoryCustom {
+
+    /**
+     * Selects only the columns of the requested fields; the author table is joined only when the author is
+     * requested. Fields that were not selected are {@code null} in the returned resources.
+     */
+    Page<QuotationResource> findQuotationResources(Set<QuotationField> fields, Pageable pageable);
+}
@@ -0,0 +1,73 @@
+package pl.radoslawornat.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.Quotation;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class QuotationRepositoryImpl implements QuotationRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<QuotationResource> findQuotationResources(Set<QuotationField> fields, Pageable pageable) {
+        boolean withContent = fields.contains(QuotationField.CONTENT);
+        boolean withAuthor = fields.contains(QuotationField.AUTHOR);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Quotation> quotation = query.from(Quotation.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(quotation.get("id").alias("id"));
+        if (withContent) {
+            selections.add(quotation.get("content").alias("content"));
+        }
+        if (withAuthor) {
+            Join<Quotation, Author> author = quotation.join("author");
+            selections.add(author.get("firstName").alias("firstName"));
+            selections.add(author.get("lastName").alias("lastName"));
+        }
+        query.multiselect(selections);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), quotation, criteriaBuilder));
+
+        List<QuotationResource> quotations = entityManager.createQuery(query)
+                .setFlushMode(FlushModeType.COMMIT)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList()
+                .stream()
+                .map(tuple -> new QuotationResource(
+                        tuple.get("id", String.class),
+                        withContent ? tuple.get("content", String.class) : null,
+                        withAuthor ? new Author(tuple.get("firstName", String.class),
+                                tuple.get("lastName", String.class)) : null))
+                .collect(Collectors.toList());
+        return PageableExecutionUtils.getPage(quotations, pageable, this::countQuotations);
+    }
+
+    private long countQuotations() {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        query.select(criteriaBuilder.count(query.from(Quotation.class)));
+        return entityManager.createQuery(query)
+                .setFlushMode(FlushModeType.COMMIT)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,293 @@
+package pl.radoslawornat.repository.memory;
+
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded storage engine keeping all quotations in memory, made durable by a write-ahead log.
+ * <ul>
+ *     <li>quotations by id in a concurrent hash map,</li>
+ *     <li>ids by insertion sequence in a skip list, the listing order by creation,</li>
+ *     <li>ids in a sorted skip list, the listing order by id,</li>
+ *     <li>a hash index of content and author backing the uniqueness rule of saved quotations.</li>
+ * </ul>
+ * Reads never lock. Writes are serialized by a single lock and reach the log before the maps are changed,
+ * so a write visible to readers is already durable. On startup the log is replayed, a torn record at its
+ * end is cut off. The log is compacted periodically once most of its records are superseded.
+ */
+@Slf4j
+public class InMemoryQuotationStore implements Closeable {
+
+    private final ConcurrentMap<String, StoredQuotation> quotationsById = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, String> idsBySequence = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListSet<String> sortedIds = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<UniquenessKey, Integer> uniquenessIndex = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final QuotationWriteAheadLog writeAheadLog;
+    private final long compactionMinGarbage;
+    private final ScheduledExecutorService compactor;
+    private long lastSequence;
+
+    public InMemoryQuotationStore(Path logPath, boolean fsync, Duration compactionInterval,
+                                  long compactionMinGarbage) throws IOException {
+        this.writeAheadLog = new QuotationWriteAheadLog(logPath, fsync);
+        this.compactionMinGarbage = compactionMinGarbage;
+        recover();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quotation-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, compactionInterval.toMillis(),
+                compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Optional<QuotationResource> findById(String quotationId) {
+        StoredQuotation storedQuotation = quotationsById.get(quotationId);
+        return storedQuotation == null ? Optional.empty() : Optional.of(storedQuotation.getQuotation());
+    }
+
+    public boolean existsById(String quotationId) {
+        return quotationsById.containsKey(quotationId);
+    }
+
+    public boolean existsByContentAndAuthor(String content, String firstName, String lastName) {
+        return uniquenessIndex.containsKey(new UniquenessKey(content, firstName, lastName));
+    }
+
+    /**
+     * Returns quotations ordered by id or by insertion, skipping {@code offset} of them. The skip lists cannot jump
+     * to a position, so the skipped ids are walked one by one and a page costs time linear in its offset; deep pages
+     * of a large store are as slow as an {@code OFFSET} scan in a database.
+     *
+     * @throws IllegalArgumentException for other sort keys, the store keeps no index for them
+     */
+    public List<QuotationResource> findAll(QuotationSort sort, long offset, int limit) {
+        List<QuotationResource> quotations = new ArrayList<>(limit);
+        Iterator<String> ids = idsInOrder(sort);
+        for (long skipped = 0; skipped < offset && ids.hasNext(); skipped++) {
+            ids.next();
+        }
+        while (quotations.size() < limit && ids.hasNext()) {
+            StoredQuotation storedQuotation = quotationsById.get(ids.next());
+            if (storedQuotation != null) {
+                quotations.add(storedQuotation.getQuotation());
+            }
+        }
+        return quotations;
+    }
+
+    public static boolean supports(QuotationSort.Key sortKey) {
+        return sortKey == QuotationSort.Key.ID || sortKey == QuotationSort.Key.CREATED;
+    }
+
+    public int count() {
+        return quotationsById.size();
+    }
+
+    /**
+     * Inserts the quotation at version {@code 0} unless a quotation with the same content and author exists.
+     *
+     * @return {@code false} if the quotation was rejected as a duplicate
+     */
+    public boolean insert(QuotationResource quotation) {
+        writeLock.lock();
+        try {
+            if (existsByContentAndAuthor(quotation.getContent(), quotation.getAuthor().getFirstName(),
+                    quotation.getAuthor().getLastName())) {
+                return false;
+            }
+            long sequence = lastSequence + 1;
+            writeAheadLog.appendPut(sequence, 0, quotation);
+            lastSequence = sequence;
+            applyPut(sequence, 0, quotation);
+            return true;
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Cannot write quotation to write-ahead log", exc);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the quotation with the id of the given one and increments its version.
+     *
+     * @return the new version, empty if there is no quotation with the id of the given one
+     */
+    public Optional<Long> update(QuotationResource quotation) {
+        writeLock.lock();
+        try {
+            StoredQuotation current = quotationsById.get(quotation.getId());
+            if (current == null) {
+                return Optional.empty();
+            }
+            long version = current.getVersion() + 1;
+            writeAheadLog.appendPut(current.getSequence(), version, quotation);
+            applyPut(current.getSequence(), version, quotation);
+            return Optional.of(version);
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Cannot write quotation to write-ahead log", exc);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code false} if there is no quotation with the given id
+     */
+    public boolean delete(String quotationId) {
+        writeLock.lock();
+        try {
+            if (!quotationsById.containsKey(quotationId)) {
+                return false;
+            }
+            writeAheadLog.appendDelete(quotationId);
+            applyDelete(quotationId);
+            return true;
+        } catch (IOException exc) {
+            throw new UncheckedIOException("Cannot write quotation deletion to write-ahead log", exc);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with the live quotations only. Writes wait for the compaction, reads do not.
+     */
+    public void compact() throws IOException {
+        writeLock.lock();
+        try {
+            long logRecords = writeAheadLog.records();
+            List<StoredQuotation> liveQuotations = new ArrayList<>(quotationsById.size());
+            idsBySequence.values().forEach(id -> liveQuotations.add(quotationsById.get(id)));
+            writeAheadLog.rewrite(liveQuotations);
+            log.info("Compacted write-ahead log from {} to {} records", logRecords, liveQuotations.size());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        writeLock.lock();
+        try {
+            writeAheadLog.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        writeAheadLog.replay(new QuotationWriteAheadLog.Replayer() {
+            @Override
+            public void onPut(long sequence, long version, QuotationResource quotation) {
+                applyPut(sequence, version, quotation);
+                lastSequence = Math.max(lastSequence, sequence);
+            }
+
+            @Override
+            public void onDelete(String quotationId) {
+                applyDelete(quotationId);
+            }
+        });
+        log.info("Recovered {} quotations from {} write-ahead log records in {} ms", quotationsById.size(),
+                writeAheadLog.records(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void compactIfNeeded() {
+        long garbage = writeAheadLog.records() - quotationsById.size();
+        if (garbage < compactionMinGarbage || garbage < quotationsById.size()) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException | RuntimeException exc) {
+            log.warn("Cannot compact write-ahead log due to: {}", exc.getMessage());
+        }
+    }
+
+    private Iterator<String> idsInOrder(QuotationSort sort) {
+        boolean descending = sort.getDirection() == Sort.Direction.DESC;
+        switch (sort.getKey()) {
+            case ID:
+                return descending ? sortedIds.descendingIterator() : sortedIds.iterator();
+            case CREATED:
+                return descending ? idsBySequence.descendingMap().values().iterator()
+                        : idsBySequence.values().iterator();
+            default:
+                throw new IllegalArgumentException("Cannot sort quotations by " + sort.getKey().getParameterName());
+        }
+    }
+
+    private void applyPut(long sequence, long version, QuotationResource quotation) {
+        StoredQuotation previous =
+                quotationsById.put(quotation.getId(), new StoredQuotation(sequence, version, quotation));
+        if (previous != null) {
+            removeFromUniquenessIndex(previous.getQuotation());
+        }
+        uniquenessIndex.merge(uniquenessKey(quotation), 1, Integer::sum);
+        idsBySequence.put(sequence, quotation.getId());
+        sortedIds.add(quotation.getId());
+    }
+
+    private void applyDelete(String quotationId) {
+        StoredQuotation previous = quotationsById.remove(quotationId);
+        if (previous != null) {
+            idsBySequence.remove(previous.getSequence());
+            sortedIds.remove(quotationId);
+            removeFromUniquenessIndex(previous.getQuotation());
+        }
+    }
+
+    private void removeFromUniquenessIndex(QuotationResource quotation) {
+        uniquenessIndex.computeIfPresent(uniquenessKey(quotation), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static UniquenessKey uniquenessKey(QuotationResource quotation) {
+        return new UniquenessKey(quotation.getContent(), quotation.getAuthor().getFirstName(),
+                quotation.getAuthor().getLastName());
+    }
+
+    /**
+     * Mirrors the duplicate check of the database backed service: content and first name match exactly,
+     * the last name ignoring case. Updates do not enforce uniqueness there either, hence several quotations
+     * may share a key and the index counts them.
+     */
+    @EqualsAndHashCode
+    private static final class UniquenessKey {
+        private final String content;
+        private final String firstName;
+        private final String lastName;
+
+        private UniquenessKey(String content, String firstName, String lastName) {
+            this.content = content;
+            this.firstName = firstName;
+            this.lastName = lastName.toUpperCase(Locale.ROOT);
+        }
+    }
+}
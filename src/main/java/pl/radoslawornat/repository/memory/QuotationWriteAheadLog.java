@@ -0,0 +1,232 @@
+package pl.radoslawornat.repository.memory;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of quotation writes. Every record is framed as payload length, CRC32 of the payload and
+ * the payload itself, so a record torn by a crash in the middle of a write is detected on recovery and cut off.
+ * A write is durable once {@link #appendPut} or {@link #appendDelete} returns, unless fsync is disabled.
+ * A failed append is cut off again, so a record the caller was told failed is never replayed; if even that fails,
+ * the log refuses every further append.
+ * <p>
+ * Puts carry the version of the quotation. Logs written before quotations were versioned hold unversioned puts,
+ * replayed at version {@code 0}.
+ */
+@Slf4j
+class QuotationWriteAheadLog implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte VERSIONED_PUT = 3;
+    private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_PAYLOAD_SIZE = 1 << 20;
+
+    interface Replayer {
+        void onPut(long sequence, long version, QuotationResource quotation);
+
+        void onDelete(String quotationId);
+    }
+
+    private final Path path;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long records;
+    private IOException failure;
+
+    QuotationWriteAheadLog(Path path, boolean fsync) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        this.path = path;
+        this.fsync = fsync;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Replays all complete records and truncates the log after the last one.
+     */
+    void replay(Replayer replayer) throws IOException {
+        long validLength = 0;
+        long replayedRecords = 0;
+        long fileSize = channel.size();
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        while (fileSize - validLength >= FRAME_HEADER_SIZE) {
+            int payloadSize = input.readInt();
+            int checksum = input.readInt();
+            if (payloadSize <= 0 || payloadSize > MAX_PAYLOAD_SIZE
+                    || fileSize - validLength - FRAME_HEADER_SIZE < payloadSize) {
+                break;
+            }
+            byte[] payload = new byte[payloadSize];
+            input.readFully(payload);
+            if (checksum != checksum(payload)) {
+                break;
+            }
+            apply(payload, replayer);
+            validLength += FRAME_HEADER_SIZE + payloadSize;
+            replayedRecords++;
+        }
+        if (validLength < fileSize) {
+            log.warn("Truncating {} bytes of an incomplete record at the end of write-ahead log {}",
+                    fileSize - validLength, path.toAbsolutePath());
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        channel.position(validLength);
+        records = replayedRecords;
+    }
+
+    void appendPut(long sequence, long version, QuotationResource quotation) throws IOException {
+        append(putPayload(sequence, version, quotation));
+    }
+
+    void appendDelete(String quotationId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(DELETE);
+        writeString(payload, quotationId);
+        append(bytes.toByteArray());
+    }
+
+    long records() {
+        return records;
+    }
+
+    /**
+     * Replaces the log with one holding only the given quotations. The new log is written next to the old one
+     * and renamed over it, so a crash during compaction leaves the old log intact.
+     */
+    void rewrite(Iterable<StoredQuotation> quotations) throws IOException {
+        Path compactedPath = path.resolveSibling(path.getFileName() + ".compacting");
+        long compactedRecords = 0;
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (StoredQuotation quotation : quotations) {
+                writeFrame(compacted,
+                        putPayload(quotation.getSequence(), quotation.getVersion(), quotation.getQuotation()));
+                compactedRecords++;
+            }
+            compacted.force(true);
+        }
+        Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        records = compactedRecords;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] putPayload(long sequence, long version, QuotationResource quotation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(VERSIONED_PUT);
+        payload.writeLong(sequence);
+        payload.writeLong(version);
+        writeString(payload, quotation.getId());
+        writeString(payload, quotation.getContent());
+        writeString(payload, quotation.getAuthor().getFirstName());
+        writeString(payload, quotation.getAuthor().getLastName());
+        return bytes.toByteArray();
+    }
+
+    private void append(byte[] payload) throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-ahead log " + path.toAbsolutePath() + " is unusable after a failed write",
+                    failure);
+        }
+        long position = channel.position();
+        try {
+            writeFrame(channel, payload);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException exc) {
+            truncateFailedAppend(position, exc);
+            throw exc;
+        }
+        records++;
+    }
+
+    /**
+     * Cuts off whatever part of the failed record reached the file. A frame that stayed in the file would be
+     * replayed after a restart although the write was reported as failed, and records appended after it would
+     * follow a gap.
+     */
+    private void truncateFailedAppend(long position, IOException cause) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException exc) {
+            cause.addSuppressed(exc);
+            failure = cause;
+            log.error("Cannot truncate failed record of write-ahead log {}, refusing further writes due to: {}",
+                    path.toAbsolutePath(), exc.getMessage());
+        }
+    }
+
+    private static void writeFrame(FileChannel target, byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload);
+        frame.flip();
+        while (frame.hasRemaining()) {
+            target.write(frame);
+        }
+    }
+
+    private static void apply(byte[] payload, Replayer replayer) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = input.readByte();
+        if (type == PUT || type == VERSIONED_PUT) {
+            long sequence = input.readLong();
+            long version = type == VERSIONED_PUT ? input.readLong() : 0;
+            String id = readString(input);
+            String content = readString(input);
+            Author author = new Author(readString(input), readString(input));
+            replayer.onPut(sequence, version, new QuotationResource(id, content, author));
+        } else if (type == DELETE) {
+            replayer.onDelete(readString(input));
+        } else {
+            throw new IOException("Unknown record type in write-ahead log: " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,21 @@
+package pl.radoslawornat.repository.memory;
+
+import lombok.Getter;
+import pl.radoslawornat.model.response.QuotationResource;
+
+/**
+ * A quotation together with its insertion sequence, which keeps its position in listings across updates,
+ * and its version, starting at {@code 0} and incremented by every update.
+ */
+@Getter
+final class StoredQuotation {
+    private final long sequence;
+    private final long version;
+    private final QuotationResource quotation;
+
+    StoredQuotation(long sequence, long version, QuotationResource quotation) {
+        this.sequence = sequence;
+        this.version = version;
+        this.quotation = quotation;
+    }
+}
@@ -0,0 +1,207 @@
+package pl.radoslawornat.repository.shard;
+
+import lombok.Getter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One database holding a share of the quotations. The author is kept in the quotation row, an author table
+ * would have to be kept in sync on every shard. Uniqueness claims live in their own table and are routed
+ * by their key, so the shard of a claim is usually not the shard of its quotation.
+ * All statements run in auto-commit mode, the rows and claims of one write are not updated atomically.
+ */
+public class QuotationShard {
+
+    private static final String QUOTATION_COLUMNS =
+            "id, content, first_name, last_name, created_at, last_modified, version";
+
+    private static final RowMapper<ShardedQuotation> QUOTATION_ROW_MAPPER = (resultSet, rowNumber) ->
+            new ShardedQuotation(
+                    new QuotationResource(resultSet.getString("id"), resultSet.getString("content"),
+                            resultSet.getString("first_name"), resultSet.getString("last_name")),
+                    resultSet.getTimestamp("created_at").toInstant(),
+                    resultSet.getTimestamp("last_modified").toInstant(),
+                    resultSet.getLong("version"));
+
+    private static final RowMapper<Claim> CLAIM_ROW_MAPPER = (resultSet, rowNumber) ->
+            new Claim(resultSet.getString("claim_key"), resultSet.getString("quotation_id"));
+
+    @Getter
+    private final int index;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public QuotationShard(int index, DataSource dataSource) {
+        this.index = index;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Creates the tables on an empty shard and adds columns missing on shards created by older versions.
+     * The statements are accepted by Postgres and by H2 in PostgreSQL mode.
+     */
+    public void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS quotation ("
+                + "id VARCHAR(36) NOT NULL PRIMARY KEY, "
+                + "content VARCHAR(1000) NOT NULL, "
+                + "first_name VARCHAR(255) NOT NULL, "
+                + "last_name VARCHAR(255) NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL, "
+                + "last_modified TIMESTAMP NOT NULL, "
+                + "version BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("ALTER TABLE quotation ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_quotation_created_at_id ON quotation (created_at, id)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS quotation_claim ("
+                + "claim_key CHAR(64) NOT NULL PRIMARY KEY, "
+                + "quotation_id VARCHAR(36) NOT NULL)");
+    }
+
+    public Optional<ShardedQuotation> findById(String quotationId) {
+        return jdbcTemplate.query("SELECT " + QUOTATION_COLUMNS + " FROM quotation WHERE id = ?",
+                QUOTATION_ROW_MAPPER, quotationId).stream().findFirst();
+    }
+
+    public List<ShardedQuotation> findByIds(Collection<String> quotationIds) {
+        return namedParameterJdbcTemplate.query("SELECT " + QUOTATION_COLUMNS + " FROM quotation WHERE id IN (:ids)",
+                Map.of("ids", quotationIds), QUOTATION_ROW_MAPPER);
+    }
+
+    /**
+     * Next batch of a keyset scan in the given order, starting after {@code after} or from the beginning when it
+     * is {@code null}. Only the orders served by an index, i.e. by id and by creation time, are supported.
+     */
+    public List<ShardedQuotation> findBatch(QuotationSort sort, ShardedQuotation after, int limit) {
+        boolean ascending = sort.getDirection().isAscending();
+        String direction = ascending ? "ASC" : "DESC";
+        String comparison = ascending ? ">" : "<";
+        String select = "SELECT " + QUOTATION_COLUMNS + " FROM quotation ";
+        switch (sort.getKey()) {
+            case ID:
+                if (after == null) {
+                    return jdbcTemplate.query(select + "ORDER BY id " + direction + " LIMIT ?",
+                            QUOTATION_ROW_MAPPER, limit);
+                }
+                return jdbcTemplate.query(select + "WHERE id " + comparison + " ? ORDER BY id " + direction
+                        + " LIMIT ?", QUOTATION_ROW_MAPPER, after.getId(), limit);
+            case CREATED:
+                String order = "ORDER BY created_at " + direction + ", id " + direction + " LIMIT ?";
+                if (after == null) {
+                    return jdbcTemplate.query(select + order, QUOTATION_ROW_MAPPER, limit);
+                }
+                Timestamp createdAt = Timestamp.from(after.getCreatedAt());
+                return jdbcTemplate.query(select + "WHERE created_at " + comparison + " ? "
+                                + "OR (created_at = ? AND id " + comparison + " ?) " + order,
+                        QUOTATION_ROW_MAPPER, createdAt, createdAt, after.getId(), limit);
+            default:
+                throw new IllegalArgumentException("Shards cannot be scanned by " + sort.getKey().getParameterName());
+        }
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM quotation", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Returns false when a quotation with the same id is already stored, which makes moving rows repeatable.
+     */
+    public boolean insert(ShardedQuotation quotation) {
+        QuotationResource resource = quotation.getQuotation();
+        try {
+            jdbcTemplate.update("INSERT INTO quotation (" + QUOTATION_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    resource.getId(), resource.getContent(),
+                    resource.getAuthor().getFirstName(), resource.getAuthor().getLastName(),
+                    Timestamp.from(quotation.getCreatedAt()), Timestamp.from(quotation.getLastModified()),
+                    quotation.getVersion());
+            return true;
+        } catch (DuplicateKeyException exc) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the quotation only if the stored row is at the version preceding the version of the quotation,
+     * so of two concurrent updates of one quotation only the first gets the version.
+     *
+     * @return {@code false} if there is no quotation with the id or it is at another version
+     */
+    public boolean update(ShardedQuotation quotation) {
+        QuotationResource resource = quotation.getQuotation();
+        return jdbcTemplate.update("UPDATE quotation SET content = ?, first_name = ?, last_name = ?, "
+                        + "last_modified = ?, version = ? WHERE id = ? AND version = ?",
+                resource.getContent(), resource.getAuthor().getFirstName(), resource.getAuthor().getLastName(),
+                Timestamp.from(quotation.getLastModified()), quotation.getVersion(), resource.getId(),
+                quotation.getVersion() - 1) > 0;
+    }
+
+    public boolean delete(String quotationId) {
+        return jdbcTemplate.update("DELETE FROM quotation WHERE id = ?", quotationId) > 0;
+    }
+
+    /**
+     * Takes the uniqueness claim for a quotation, returns false when the key is already claimed.
+     */
+    public boolean claim(String claimKey, String quotationId) {
+        try {
+            jdbcTemplate.update("INSERT INTO quotation_claim (claim_key, quotation_id) VALUES (?, ?)",
+                    claimKey, quotationId);
+            return true;
+        } catch (DuplicateKeyException exc) {
+            return false;
+        }
+    }
+
+    public Optional<String> findClaimHolder(String claimKey) {
+        return jdbcTemplate.queryForList("SELECT quotation_id FROM quotation_claim WHERE claim_key = ?",
+                String.class, claimKey).stream().findFirst();
+    }
+
+    /**
+     * Hands the claim over to another quotation, returns false when it is no longer held by {@code fromQuotationId}.
+     */
+    public boolean transferClaim(String claimKey, String fromQuotationId, String toQuotationId) {
+        return jdbcTemplate.update("UPDATE quotation_claim SET quotation_id = ? WHERE claim_key = ? AND quotation_id = ?",
+                toQuotationId, claimKey, fromQuotationId) > 0;
+    }
+
+    /**
+     * Releases a claim only when it is held by the given quotation, so a claim taken over in the meantime stays.
+     */
+    public void release(String claimKey, String quotationId) {
+        jdbcTemplate.update("DELETE FROM quotation_claim WHERE claim_key = ? AND quotation_id = ?",
+                claimKey, quotationId);
+    }
+
+    public List<ShardedQuotation> findQuotationsAfter(String afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + QUOTATION_COLUMNS + " FROM quotation WHERE id > ? ORDER BY id LIMIT ?",
+                QUOTATION_ROW_MAPPER, afterId, limit);
+    }
+
+    public List<Claim> findClaimsAfter(String afterKey, int limit) {
+        return jdbcTemplate.query("SELECT claim_key, quotation_id FROM quotation_claim WHERE claim_key > ? "
+                + "ORDER BY claim_key LIMIT ?", CLAIM_ROW_MAPPER, afterKey, limit);
+    }
+
+    @Getter
+    public static final class Claim {
+        private final String claimKey;
+        private final String quotationId;
+
+        public Claim(String claimKey, String quotationId) {
+            this.claimKey = claimKey;
+            this.quotationId = quotationId;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package pl.radoslawornat.repository.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.radoslawornat.model.response.QuotationSort;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * All shards of the quotation storage together with the router choosing between them. Queries spanning several
+ * shards are scattered to the shards in parallel and their results gathered, listings are merged from one keyset
+ * cursor per shard, so a page never needs more than {@code offset + size} rows from any single shard.
+ */
+@Slf4j
+public class QuotationShards implements Closeable {
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final List<DataSource> dataSources;
+    private final List<QuotationShard> shards;
+    private final ShardRouter router;
+    private final ExecutorService scatterExecutor;
+
+    public QuotationShards(List<DataSource> dataSources, int scatterThreads) {
+        this.dataSources = List.copyOf(dataSources);
+        this.shards = new ArrayList<>(dataSources.size());
+        for (int index = 0; index < dataSources.size(); index++) {
+            shards.add(new QuotationShard(index, dataSources.get(index)));
+        }
+        this.router = new ShardRouter(dataSources.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(scatterThreads, runnable -> {
+            Thread thread = new Thread(runnable, "quotation-shards-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void createSchema() {
+        scatter(shard -> {
+            shard.createSchema();
+            return null;
+        });
+        log.info("Quotation storage spread over {} shards", shards.size());
+    }
+
+    public List<QuotationShard> getShards() {
+        return shards;
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    public QuotationShard shardOfQuotation(String quotationId) {
+        return shards.get(router.shardOfQuotation(quotationId));
+    }
+
+    public QuotationShard shardOfClaim(String claimKey) {
+        return shards.get(router.shardOfClaim(claimKey));
+    }
+
+    /**
+     * Runs the query on every shard in parallel and returns the results in shard order.
+     */
+    public <T> List<T> scatter(Function<QuotationShard, T> query) {
+        return scatter(shards, query);
+    }
+
+    public long count() {
+        return scatter(QuotationShard::count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Looks the quotations up with one query per shard holding any of them.
+     */
+    public Map<String, ShardedQuotation> findByIds(Collection<String> quotationIds) {
+        Map<QuotationShard, List<String>> idsByShard = quotationIds.stream()
+                .distinct()
+                .collect(Collectors.groupingBy(this::shardOfQuotation, LinkedHashMap::new, Collectors.toList()));
+        Map<String, ShardedQuotation> quotations = new HashMap<>();
+        scatter(new ArrayList<>(idsByShard.entrySet()), entry -> entry.getKey().findByIds(entry.getValue()))
+                .forEach(found -> found.forEach(quotation -> quotations.put(quotation.getId(), quotation)));
+        return quotations;
+    }
+
+    /**
+     * One page of all quotations in the given order, merged from the shards. Every shard is read with a keyset
+     * cursor and the cursors are merged through a priority queue, which skips {@code offset} quotations and
+     * collects the next {@code limit}. The first batches are fetched in parallel, later ones when a cursor runs dry.
+     */
+    public List<ShardedQuotation> findPage(QuotationSort sort, long offset, int limit) {
+        int batchSize = (int) Math.min(MAX_BATCH_SIZE, Math.max(limit, (offset + limit) / shards.size() + 1));
+        List<ShardCursor> cursors = shards.stream()
+                .map(shard -> new ShardCursor(shard, sort, batchSize))
+                .collect(Collectors.toList());
+        scatter(cursors, ShardCursor::peek);
+
+        PriorityQueue<ShardCursor> queue =
+                new PriorityQueue<>(cursors.size(), Comparator.comparing(ShardCursor::peek, listingOrder(sort)));
+        cursors.stream().filter(cursor -> cursor.peek() != null).forEach(queue::add);
+        List<ShardedQuotation> page = new ArrayList<>(limit);
+        long skipped = 0;
+        while (page.size() < limit && !queue.isEmpty()) {
+            ShardCursor cursor = queue.poll();
+            ShardedQuotation quotation = cursor.next();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(quotation);
+            }
+            if (cursor.peek() != null) {
+                queue.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    public static boolean supports(QuotationSort.Key key) {
+        return key == QuotationSort.Key.ID || key == QuotationSort.Key.CREATED;
+    }
+
+    /**
+     * Must agree with the order of the shard queries, ids are therefore compared by code points, which requires
+     * the "C" collation on Postgres shards.
+     */
+    private static Comparator<ShardedQuotation> listingOrder(QuotationSort sort) {
+        Comparator<ShardedQuotation> order = sort.getKey() == QuotationSort.Key.CREATED
+                ? Comparator.comparing(ShardedQuotation::getCreatedAt).thenComparing(ShardedQuotation::getId)
+                : Comparator.comparing(ShardedQuotation::getId);
+        return sort.getDirection().isAscending() ? order : order.reversed();
+    }
+
+    private <S, T> List<T> scatter(List<S> targets, Function<S, T> query) {
+        if (targets.size() == 1) {
+            return Collections.singletonList(query.apply(targets.get(0)));
+        }
+        List<CompletableFuture<T>> results = targets.stream()
+                .map(target -> CompletableFuture.supplyAsync(() -> query.apply(target), scatterExecutor))
+                .collect(Collectors.toList());
+        try {
+            return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException exc) {
+            if (exc.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exc.getCause();
+            }
+            throw exc;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scatterExecutor.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+}
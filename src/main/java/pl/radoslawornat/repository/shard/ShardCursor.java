@@ -0,0 +1,46 @@
+package pl.radoslawornat.repository.shard;
+
+import pl.radoslawornat.model.response.QuotationSort;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keyset cursor over one shard in listing order, fetching the next batch only when the buffered one is used up.
+ */
+final class ShardCursor {
+
+    private final QuotationShard shard;
+    private final QuotationSort sort;
+    private final int batchSize;
+    private final Deque<ShardedQuotation> buffer = new ArrayDeque<>();
+    private ShardedQuotation last;
+    private boolean exhausted;
+
+    ShardCursor(QuotationShard shard, QuotationSort sort, int batchSize) {
+        this.shard = shard;
+        this.sort = sort;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the current quotation without moving the cursor, {@code null} when the shard has no more rows.
+     */
+    ShardedQuotation peek() {
+        if (buffer.isEmpty() && !exhausted) {
+            List<ShardedQuotation> batch = shard.findBatch(sort, last, batchSize);
+            buffer.addAll(batch);
+            exhausted = batch.size() < batchSize;
+        }
+        return buffer.peekFirst();
+    }
+
+    ShardedQuotation next() {
+        ShardedQuotation quotation = peek();
+        if (quotation != null) {
+            last = buffer.removeFirst();
+        }
+        return quotation;
+    }
+}
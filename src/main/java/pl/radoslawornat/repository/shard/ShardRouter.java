@@ -0,0 +1,81 @@
+package pl.radoslawornat.repository.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Maps quotation ids and uniqueness keys to shards with a 64-bit FNV-1a hash followed by jump consistent hashing.
+ * When shards are appended to the configuration only about {@code 1/n} of the keys move, and only to the new
+ * shards, so a rebalance never shuffles data between the existing ones.
+ */
+public final class ShardRouter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOfQuotation(String quotationId) {
+        return jumpConsistentHash(fnv1a(quotationId), shardCount);
+    }
+
+    public int shardOfClaim(String claimKey) {
+        return jumpConsistentHash(fnv1a(claimKey), shardCount);
+    }
+
+    /**
+     * Key of the content and author uniqueness rule: content and first name match exactly, the last name ignoring
+     * case, as in the database backed service. Hashed, so the key has a fixed length whatever the content.
+     */
+    public static String claimKey(String content, String authorFirstName, String authorLastName) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new IllegalStateException("SHA-256 is not available", exc);
+        }
+        String normalized = content + '\u0000' + authorFirstName + '\u0000' + authorLastName.toUpperCase(Locale.ROOT);
+        byte[] hash = digest.digest(normalized.getBytes(StandardCharsets.UTF_8));
+        StringBuilder key = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            key.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    static long fnv1a(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte octet : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= octet & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm".
+     */
+    static int jumpConsistentHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
@@ -0,0 +1,29 @@
+package pl.radoslawornat.repository.shard;
+
+import lombok.Getter;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.time.Instant;
+
+/**
+ * A quotation row of a shard, the timestamps are kept so rows keep their position in listings when they move
+ * between shards. The version starts at {@code 0} and is incremented by every update.
+ */
+@Getter
+public final class ShardedQuotation {
+    private final QuotationResource quotation;
+    private final Instant createdAt;
+    private final Instant lastModified;
+    private final long version;
+
+    public ShardedQuotation(QuotationResource quotation, Instant createdAt, Instant lastModified, long version) {
+        this.quotation = quotation;
+        this.createdAt = createdAt;
+        this.lastModified = lastModified;
+        this.version = version;
+    }
+
+    public String getId() {
+        return quotation.getId();
+    }
+}
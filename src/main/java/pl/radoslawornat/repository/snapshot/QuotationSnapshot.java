@@ -0,0 +1,126 @@
+package pl.radoslawornat.repository.snapshot;
+
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Set;
+
+import static pl.radoslawornat.repository.snapshot.QuotationSnapshotFormat.*;
+
+/**
+ * Read-only view of a snapshot file mapped into memory. Opening only maps the file and checks the header,
+ * nothing is loaded: pages of the file are brought in by the operating system when a record is first read
+ * and are shared by every process mapping the same file. Lookups by id compare against the mapped bytes
+ * directly; only the fields of the returned quotations are decoded to strings.
+ * <p>
+ * Safe for concurrent use, all reads use absolute positions.
+ */
+public final class QuotationSnapshot {
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int recordTableOffset;
+    private final int idIndexOffset;
+
+    private QuotationSnapshot(ByteBuffer buffer, int count, int recordTableOffset, int idIndexOffset) {
+        this.buffer = buffer;
+        this.count = count;
+        this.recordTableOffset = recordTableOffset;
+        this.idIndexOffset = idIndexOffset;
+    }
+
+    public static QuotationSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a quotation snapshot: " + path);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a quotation snapshot: " + path);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException(String.format("Unsupported version %d of quotation snapshot: %s",
+                        buffer.getInt(4), path));
+            }
+            int count = buffer.getInt(8);
+            int recordTableOffset = buffer.getInt(12);
+            int idIndexOffset = buffer.getInt(16);
+            if (count < 0 || recordTableOffset < HEADER_SIZE
+                    || idIndexOffset != recordTableOffset + (long) count * RECORD_SIZE
+                    || size != idIndexOffset + (long) count * INDEX_ENTRY_SIZE) {
+                throw new IOException("Corrupted quotation snapshot: " + path);
+            }
+            return new QuotationSnapshot(buffer, count, recordTableOffset, idIndexOffset);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Reads the record at the given position of the listing order.
+     */
+    public QuotationResource read(int recordNumber, Set<QuotationField> fields) {
+        String id = readField(recordNumber, ID);
+        String content = fields.contains(QuotationField.CONTENT) ? readField(recordNumber, CONTENT) : null;
+        if (!fields.contains(QuotationField.AUTHOR)) {
+            return new QuotationResource(id, content, null);
+        }
+        return new QuotationResource(id, content, readField(recordNumber, FIRST_NAME), readField(recordNumber, LAST_NAME));
+    }
+
+    public Optional<QuotationResource> findById(String quotationId, Set<QuotationField> fields) {
+        byte[] id = quotationId.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int recordNumber = buffer.getInt(idIndexOffset + middle * INDEX_ENTRY_SIZE);
+            int comparison = compareId(recordNumber, id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return Optional.of(read(recordNumber, fields));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private int compareId(int recordNumber, byte[] id) {
+        int fieldPosition = fieldPosition(recordNumber, ID);
+        int offset = buffer.getInt(fieldPosition);
+        int length = buffer.getInt(fieldPosition + Integer.BYTES);
+        int commonLength = Math.min(length, id.length);
+        for (int i = 0; i < commonLength; i++) {
+            int comparison = Integer.compare(buffer.get(offset + i) & 0xFF, id[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, id.length);
+    }
+
+    private String readField(int recordNumber, int field) {
+        int fieldPosition = fieldPosition(recordNumber, field);
+        int offset = buffer.getInt(fieldPosition);
+        int length = buffer.getInt(fieldPosition + Integer.BYTES);
+        byte[] bytes = new byte[length];
+        buffer.duplicate().position(offset).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int fieldPosition(int recordNumber, int field) {
+        return recordTableOffset + recordNumber * RECORD_SIZE + field * 2 * Integer.BYTES;
+    }
+}
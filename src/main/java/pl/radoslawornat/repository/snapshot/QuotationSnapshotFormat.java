@@ -0,0 +1,30 @@
+package pl.radoslawornat.repository.snapshot;
+
+/**
+ * Layout of a quotation snapshot file. All numbers are big-endian ints, all offsets are absolute
+ * positions in the file, which therefore cannot exceed 2 GB (the size of a single mapping).
+ * <pre>
+ * header       magic, version, count, record table offset, id index offset, reserved    (24 bytes)
+ * string pool  UTF-8 bytes of ids, contents and author names, author names stored once
+ * record table count x (offset, length) of id, content, first name and last name         (32 bytes each)
+ * id index     count x record number, ordered by the unsigned bytes of the id            (4 bytes each)
+ * </pre>
+ * Records keep the export order, which is the order of listing.
+ */
+final class QuotationSnapshotFormat {
+
+    static final int MAGIC = 0x51534E50; // "QSNP"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int FIELDS_PER_RECORD = 4;
+    static final int RECORD_SIZE = FIELDS_PER_RECORD * 2 * Integer.BYTES;
+    static final int INDEX_ENTRY_SIZE = Integer.BYTES;
+
+    static final int ID = 0;
+    static final int CONTENT = 1;
+    static final int FIRST_NAME = 2;
+    static final int LAST_NAME = 3;
+
+    private QuotationSnapshotFormat() {
+    }
+}
@@ -0,0 +1,150 @@
+package pl.radoslawornat.repository.snapshot;
+
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pl.radoslawornat.repository.snapshot.QuotationSnapshotFormat.*;
+
+/**
+ * Writes a snapshot in one pass: strings go to the pool as quotations are appended, the record table and
+ * the id index follow once all quotations are known. The file is written next to the target and moved into
+ * place on {@link #commit()}, so readers never map a partial snapshot.
+ */
+public class QuotationSnapshotWriter implements Closeable {
+
+    private final Path target;
+    private final Path temporaryFile;
+    private final DataOutputStream output;
+    private final Map<String, Long> authorNameRefs = new HashMap<>();
+    private final List<byte[]> ids = new ArrayList<>();
+    private long[] recordRefs = new long[FIELDS_PER_RECORD * 1024];
+    private long position;
+    private boolean committed;
+
+    public QuotationSnapshotWriter(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        this.target = target;
+        this.temporaryFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)));
+        output.write(new byte[HEADER_SIZE]);
+        this.position = HEADER_SIZE;
+    }
+
+    public void append(QuotationResource quotation) throws IOException {
+        int recordNumber = ids.size();
+        if ((recordNumber + 1) * FIELDS_PER_RECORD > recordRefs.length) {
+            recordRefs = Arrays.copyOf(recordRefs, recordRefs.length * 2);
+        }
+        byte[] id = quotation.getId().getBytes(StandardCharsets.UTF_8);
+        int base = recordNumber * FIELDS_PER_RECORD;
+        recordRefs[base + ID] = writeString(id);
+        recordRefs[base + CONTENT] = writeString(quotation.getContent().getBytes(StandardCharsets.UTF_8));
+        recordRefs[base + FIRST_NAME] = writeAuthorName(quotation.getAuthor().getFirstName());
+        recordRefs[base + LAST_NAME] = writeAuthorName(quotation.getAuthor().getLastName());
+        ids.add(id);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Writes the record table, the id index and the header, then atomically replaces the target file.
+     */
+    public void commit() throws IOException {
+        int count = ids.size();
+        long recordTableOffset = position;
+        for (int i = 0; i < count * FIELDS_PER_RECORD; i++) {
+            output.writeInt(offsetOf(recordRefs[i]));
+            output.writeInt(lengthOf(recordRefs[i]));
+        }
+        long idIndexOffset = recordTableOffset + (long) count * RECORD_SIZE;
+        for (int recordNumber : sortedById()) {
+            output.writeInt(recordNumber);
+        }
+        checkSize(idIndexOffset + (long) count * INDEX_ENTRY_SIZE);
+        output.close();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(count)
+                .putInt((int) recordTableOffset)
+                .putInt((int) idIndexOffset)
+                .putInt(0);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            output.close();
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private long writeAuthorName(String name) throws IOException {
+        Long ref = authorNameRefs.get(name);
+        if (ref == null) {
+            ref = writeString(name.getBytes(StandardCharsets.UTF_8));
+            authorNameRefs.put(name, ref);
+        }
+        return ref;
+    }
+
+    private long writeString(byte[] bytes) throws IOException {
+        long offset = position;
+        checkSize(offset + bytes.length);
+        output.write(bytes);
+        position += bytes.length;
+        return offset << 32 | bytes.length;
+    }
+
+    private Integer[] sortedById() {
+        Integer[] recordNumbers = new Integer[ids.size()];
+        for (int i = 0; i < recordNumbers.length; i++) {
+            recordNumbers[i] = i;
+        }
+        Arrays.sort(recordNumbers, (first, second) -> Arrays.compareUnsigned(ids.get(first), ids.get(second)));
+        return recordNumbers;
+    }
+
+    private static int offsetOf(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int lengthOf(long ref) {
+        return (int) ref;
+    }
+
+    private static void checkSize(long size) {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Quotation snapshot cannot be larger than 2 GB");
+        }
+    }
+}
@@ -2,10 +2,21 @@ package pl.radoslawornat.service;
 
 import org.springframework.data.domain.Page;
 import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
 import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+
+import java.util.Collection;
+import java.util.Set;
 
 public interface QuotationService {
-    Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize);
+    Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                            QuotationSort sort);
+
+    QuotationResource getQuotationById(String quotationId);
+
+    QuotationLookupResult getQuotationsByIds(Collection<String> quotationIds);
 
     QuotationResource saveQuotation(QuotationDto quotationDto);
 
@@ -0,0 +1,102 @@
+package pl.radoslawornat.service.author;
+
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.repository.AuthorRepository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory dictionary of author names to their ids, so that resolving the author of a saved quotation is
+ * a hash lookup. Authors are never removed, hence entries never go stale; an author inserted by another node
+ * is simply looked up in the database on the first miss.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class AuthorDictionary {
+
+    private final AuthorRepository authorRepository;
+    private final ConcurrentMap<AuthorKey, Long> authorIds = new ConcurrentHashMap<>();
+
+    public AuthorDictionary(AuthorRepository authorRepository) {
+        this.authorRepository = authorRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        try {
+            authorRepository.findAll()
+                    .forEach(author -> authorIds.put(new AuthorKey(author.getFirstName(), author.getLastName()),
+                            author.getId()));
+            log.info("Loaded {} authors into author dictionary", authorIds.size());
+        } catch (DataAccessException | TransactionException exc) {
+            log.warn("Cannot preload author dictionary due to: {}", exc.getMessage());
+        }
+    }
+
+    /**
+     * Returns a detached author with its id, inserting the author first when it does not exist yet.
+     * Has to be called within the transaction of the write that references the author.
+     */
+    public Author resolve(Author author) {
+        String firstName = author.getFirstName();
+        String lastName = author.getLastName();
+        AuthorKey authorKey = new AuthorKey(firstName, lastName);
+        Long authorId = authorIds.get(authorKey);
+        if (authorId == null) {
+            authorId = authorRepository.findByFirstNameAndLastName(firstName, lastName)
+                    .map(Author::getId)
+                    .orElseGet(() -> insertAuthor(firstName, lastName));
+            registerAfterCommit(authorKey, authorId);
+        }
+        return new Author(authorId, firstName, lastName);
+    }
+
+    public int size() {
+        return authorIds.size();
+    }
+
+    private Long insertAuthor(String firstName, String lastName) {
+        authorRepository.insertIfAbsent(firstName, lastName);
+        return authorRepository.findByFirstNameAndLastName(firstName, lastName)
+                .map(Author::getId)
+                .orElseThrow(() -> new QuotationServiceException(
+                        String.format("Cannot resolve author: %s %s", firstName, lastName)));
+    }
+
+    private void registerAfterCommit(AuthorKey authorKey, Long authorId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            authorIds.put(authorKey, authorId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                authorIds.put(authorKey, authorId);
+            }
+        });
+    }
+
+    @EqualsAndHashCode
+    private static final class AuthorKey {
+        private final String firstName;
+        private final String lastName;
+
+        private AuthorKey(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+}
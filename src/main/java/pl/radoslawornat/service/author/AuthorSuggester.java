@@ -0,0 +1,152 @@
+package pl.radoslawornat.service.author;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.radoslawornat.cache.QuotationInvalidationBus;
+import pl.radoslawornat.cache.QuotationInvalidationListener;
+import pl.radoslawornat.config.datasource.PrimaryDataSourceContext;
+import pl.radoslawornat.model.event.QuotationChangeType;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.response.AuthorSuggestion;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.AuthorRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Author name type-ahead served from an {@link AuthorSuggestionIndex} instead of {@code LIKE} queries.
+ * <p>
+ * The index is filled from the quotation counts of all authors, read with a single grouped query. A quotation
+ * saved on this node adds to its author's count right away. The index does not remember the author of every
+ * quotation, so it cannot tell whose count an update or deletion lowers; these, like writes of other nodes arriving
+ * on the {@link QuotationInvalidationBus}, schedule a recount instead. Recounts run at most once per
+ * {@code recountDelay} and replace the whole index.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class AuthorSuggester implements QuotationInvalidationListener {
+
+    private final AuthorRepository authorRepository;
+    private final QuotationInvalidationBus invalidationBus;
+    private final int maxSuggestions;
+    private final long recountDelayMillis;
+    private final ScheduledExecutorService recounter;
+    private final AtomicBoolean recountScheduled = new AtomicBoolean();
+    private volatile AuthorSuggestionIndex authorSuggestionIndex;
+    private volatile boolean built;
+    private volatile boolean recounting;
+
+    public AuthorSuggester(AuthorRepository authorRepository,
+                           QuotationInvalidationBus invalidationBus,
+                           @Value("${quotations.authors.suggest.max-limit}") int maxSuggestions,
+                           @Value("${quotations.authors.suggest.recount-delay}") Duration recountDelay) {
+        this.authorRepository = authorRepository;
+        this.invalidationBus = invalidationBus;
+        this.maxSuggestions = maxSuggestions;
+        this.recountDelayMillis = recountDelay.toMillis();
+        this.authorSuggestionIndex = new AuthorSuggestionIndex(maxSuggestions);
+        this.recounter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "author-suggestion-recount");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        invalidationBus.subscribe(this);
+    }
+
+    @PreDestroy
+    public void close() {
+        recounter.shutdownNow();
+    }
+
+    public List<AuthorSuggestion> suggest(String prefix, int limit) {
+        return authorSuggestionIndex.suggest(prefix, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        built = true;
+        recount();
+    }
+
+    /**
+     * A save committed while a recount reads the counts may be missing from them or, when it is added to the new
+     * index, counted twice, so it schedules another recount.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuotationChanged(QuotationChangedEvent event) {
+        if (event.getType() == QuotationChangeType.CREATED) {
+            QuotationResource quotation = event.getQuotation();
+            authorSuggestionIndex.add(quotation.getAuthor().getFirstName(), quotation.getAuthor().getLastName(), 1);
+            if (!recounting) {
+                return;
+            }
+        }
+        scheduleRecount();
+    }
+
+    /**
+     * Invalidations published inside a transaction of this node are skipped, the committed change follows
+     * as a {@link QuotationChangedEvent}.
+     */
+    @Override
+    public void onInvalidate(String quotationId, long version) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        scheduleRecount();
+    }
+
+    @Override
+    public void onResync() {
+        scheduleRecount();
+    }
+
+    /**
+     * Ignored until the first build, which counts everything anyway. The flag is cleared before the recount
+     * starts, so a change arriving during a recount schedules the next one.
+     */
+    private void scheduleRecount() {
+        if (built && recountScheduled.compareAndSet(false, true)) {
+            recounter.schedule(() -> {
+                recountScheduled.set(false);
+                recount();
+            }, recountDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void recount() {
+        recounting = true;
+        try {
+            List<AuthorSuggestion> counts =
+                    PrimaryDataSourceContext.callOnPrimary(authorRepository::countQuotationsPerAuthor);
+            authorSuggestionIndex = new AuthorSuggestionIndex(maxSuggestions, counts);
+            log.info("Indexed {} authors for name suggestions", counts.size());
+        } catch (DataAccessException | TransactionException exc) {
+            log.warn("Cannot count quotations of authors for name suggestions due to: {}", exc.getMessage());
+            scheduleRecount();
+        } finally {
+            recounting = false;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package pl.radoslawornat.service.author;
+
+import lombok.EqualsAndHashCode;
+import pl.radoslawornat.model.response.AuthorSuggestion;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Prefix index of author names for type-ahead, ranking the matching authors by their number of quotations.
+ * <p>
+ * Every author is indexed under "first last" and "last first", so typing either name finds the author. Names are
+ * normalized to lower case without diacritics, i.e. "zol" finds "Żółkiewski".
+ * <p>
+ * Short prefixes match most of the authors, so for every prefix of up to {@value #PRECOMPUTED_PREFIX_LENGTH}
+ * characters the best {@code maxSuggestions} authors are kept ready and a lookup just returns them. An author takes
+ * part in at most that many lists per name, which bounds their memory. Longer prefixes, or a limit above
+ * {@code maxSuggestions}, walk the range of the normalized names starting with the prefix in a skip list; few
+ * authors share that many leading characters.
+ * <p>
+ * Quotation counts only grow here: a drop is applied by building a new index from fresh counts. As long as counts
+ * grow, the best authors of a prefix afterwards are among its previous best ones and the author that grew, so
+ * the lists are kept up to date without walking the names. The lists are immutable and replaced as a whole, so
+ * lookups read them without locking.
+ */
+public class AuthorSuggestionIndex {
+
+    static final int PRECOMPUTED_PREFIX_LENGTH = 8;
+
+    static final Comparator<AuthorSuggestion> RANKING = Comparator.comparingInt(AuthorSuggestion::getQuotationCount)
+            .reversed()
+            .thenComparing(AuthorSuggestion::getLastName)
+            .thenComparing(AuthorSuggestion::getFirstName);
+
+    private static final char NAME_SEPARATOR = '\u0000';
+
+    private final int maxSuggestions;
+    private final ConcurrentMap<AuthorKey, Entry> authors = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Entry> names = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, List<AuthorSuggestion>> bestByPrefix = new ConcurrentHashMap<>();
+
+    public AuthorSuggestionIndex(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Indexes authors with their quotation counts at once, sorting every precomputed list a single time.
+     */
+    public AuthorSuggestionIndex(int maxSuggestions, Collection<AuthorSuggestion> authorsWithCounts) {
+        this(maxSuggestions);
+        Map<String, List<AuthorSuggestion>> candidates = new HashMap<>();
+        for (AuthorSuggestion author : authorsWithCounts) {
+            Entry entry = entry(author.getFirstName(), author.getLastName());
+            entry.quotationCount += author.getQuotationCount();
+        }
+        for (Entry entry : authors.values()) {
+            AuthorSuggestion suggestion = entry.toSuggestion();
+            for (String prefix : entry.prefixes()) {
+                candidates.computeIfAbsent(prefix, key -> new ArrayList<>()).add(suggestion);
+            }
+        }
+        candidates.forEach((prefix, suggestions) -> {
+            suggestions.sort(RANKING);
+            bestByPrefix.put(prefix, List.copyOf(suggestions.subList(0, Math.min(maxSuggestions, suggestions.size()))));
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} authors with a name starting with the prefix, those with most quotations first.
+     */
+    public List<AuthorSuggestion> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        if (normalizedPrefix.isBlank() || limit < 1) {
+            return List.of();
+        }
+        if (normalizedPrefix.length() <= PRECOMPUTED_PREFIX_LENGTH && limit <= maxSuggestions) {
+            List<AuthorSuggestion> best = bestByPrefix.getOrDefault(normalizedPrefix, List.of());
+            return best.subList(0, Math.min(limit, best.size()));
+        }
+        PriorityQueue<AuthorSuggestion> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        Set<Entry> matched = new HashSet<>();
+        for (Entry entry : names.subMap(normalizedPrefix, normalizedPrefix + Character.MAX_VALUE).values()) {
+            if (matched.add(entry)) {
+                best.add(entry.toSuggestion());
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<AuthorSuggestion> suggestions = new ArrayList<>(best);
+        suggestions.sort(RANKING);
+        return Collections.unmodifiableList(suggestions);
+    }
+
+    /**
+     * Adds quotations to the count of the author, indexing the author first when it is new.
+     */
+    public synchronized void add(String firstName, String lastName, int quotations) {
+        Entry entry = entry(firstName, lastName);
+        entry.quotationCount += quotations;
+        AuthorSuggestion suggestion = entry.toSuggestion();
+        for (String prefix : entry.prefixes()) {
+            List<AuthorSuggestion> best = new ArrayList<>(bestByPrefix.getOrDefault(prefix, List.of()));
+            best.removeIf(other -> other.getFirstName().equals(firstName) && other.getLastName().equals(lastName));
+            best.add(suggestion);
+            best.sort(RANKING);
+            bestByPrefix.put(prefix, List.copyOf(best.subList(0, Math.min(maxSuggestions, best.size()))));
+        }
+    }
+
+    public int size() {
+        return authors.size();
+    }
+
+    /**
+     * Lower case without diacritics and with single spaces. Letters not decomposed by Unicode, like the Polish
+     * "ł", are folded explicitly. A trailing space is kept, so a typed space ends the first name.
+     */
+    static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char character = decomposed.charAt(i);
+            int type = Character.getType(character);
+            if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                    || type == Character.ENCLOSING_MARK) {
+                continue;
+            }
+            if (Character.isWhitespace(character)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(fold(Character.toLowerCase(character)));
+        }
+        if (pendingSpace) {
+            normalized.append(' ');
+        }
+        return normalized.toString();
+    }
+
+    private static String fold(char character) {
+        switch (character) {
+            case 'ł':
+                return "l";
+            case 'đ':
+                return "d";
+            case 'ø':
+                return "o";
+            case 'ß':
+                return "ss";
+            case 'æ':
+                return "ae";
+            case 'œ':
+                return "oe";
+            default:
+                return String.valueOf(character);
+        }
+    }
+
+    private Entry entry(String firstName, String lastName) {
+        return authors.computeIfAbsent(new AuthorKey(firstName, lastName), key -> {
+            Entry entry = new Entry(firstName, lastName);
+            String author = NAME_SEPARATOR + firstName + NAME_SEPARATOR + lastName;
+            names.put(entry.firstLast + author, entry);
+            names.put(entry.lastFirst + author, entry);
+            return entry;
+        });
+    }
+
+    private static final class Entry {
+        private final String firstName;
+        private final String lastName;
+        private final String firstLast;
+        private final String lastFirst;
+        private volatile int quotationCount;
+
+        private Entry(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.firstLast = normalize(firstName + " " + lastName);
+            this.lastFirst = normalize(lastName + " " + firstName);
+        }
+
+        /**
+         * The precomputed prefixes of both names, a prefix shared by the two names only once.
+         */
+        private Set<String> prefixes() {
+            Set<String> prefixes = new HashSet<>();
+            for (String name : List.of(firstLast, lastFirst)) {
+                for (int length = 1; length <= Math.min(PRECOMPUTED_PREFIX_LENGTH, name.length()); length++) {
+                    prefixes.add(name.substring(0, length));
+                }
+            }
+            return prefixes;
+        }
+
+        private AuthorSuggestion toSuggestion() {
+            return new AuthorSuggestion(firstName, lastName, quotationCount);
+        }
+    }
+
+    @EqualsAndHashCode
+    private static final class AuthorKey {
+        private final String firstName;
+        private final String lastName;
+
+        private AuthorKey(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+    }
+}
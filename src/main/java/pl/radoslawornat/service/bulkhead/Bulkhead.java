@@ -0,0 +1,170 @@
+package pl.radoslawornat.service.bulkhead;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.radoslawornat.config.datasource.PrimaryDataSourceContext;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.model.exception.QuotationServiceOverloadedException;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs one kind of operations on its own fixed pool of threads with a bounded queue in front of it.
+ * The number of threads caps the database connections the operations can hold at once, so a flood of one kind
+ * cannot take the connections of another. Operations that do not fit into the queue are rejected right away
+ * instead of piling up on request threads.
+ * <p>
+ * The caller waits for the result, exceptions of the operation are rethrown unchanged. The primary datasource
+ * flag of the caller is carried over to the worker thread. Calls made within a transaction run on the caller's
+ * thread, because the transaction is bound to it. The worker threads know the bulkhead they run in, see
+ * {@link #current()}, so connections can be taken from a pool of the bulkhead.
+ */
+@Slf4j
+public class Bulkhead implements Closeable {
+
+    public static final String BULKHEAD_FULL = "Too many %s operations in progress. Please retry in %s seconds";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final int queueCapacity;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejections = new LongAdder();
+
+    public Bulkhead(String name, int threads, int queueCapacity, Duration retryAfter) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads and queue capacity of " + name + " bulkhead must be positive");
+        }
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = Math.max(1, retryAfter.getSeconds());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "quotations-" + name + "-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> T call(Supplier<T> operation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operation.get();
+        }
+        boolean primaryRequired = PrimaryDataSourceContext.isPrimaryRequired();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                if (primaryRequired) {
+                    PrimaryDataSourceContext.requirePrimary();
+                }
+                CURRENT.set(name);
+                try {
+                    return operation.get();
+                } finally {
+                    CURRENT.remove();
+                    PrimaryDataSourceContext.clear();
+                }
+            });
+        } catch (RejectedExecutionException exc) {
+            rejections.increment();
+            log.debug("Rejecting {} operation, {} threads busy and {} operations queued",
+                    name, executor.getActiveCount(), executor.getQueue().size());
+            throw new QuotationServiceOverloadedException(
+                    String.format(BULKHEAD_FULL, name, retryAfterSeconds), retryAfterSeconds);
+        }
+        return await(result);
+    }
+
+    /**
+     * Name of the bulkhead running the operation on the calling thread, {@code null} outside of bulkheads.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public void run(Runnable operation) {
+        call(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Publishes busy threads, queued operations, saturation (the filled share of threads and queue together)
+     * and rejections, all tagged with the name of the bulkhead.
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("quotations.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads of the bulkhead running an operation")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("quotations.bulkhead.queued", executor, pool -> pool.getQueue().size())
+                .description("Operations waiting for a thread of the bulkhead")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("quotations.bulkhead.saturation", this, Bulkhead::getSaturation)
+                .description("Share of threads and queue slots of the bulkhead in use")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("quotations.bulkhead.rejected", rejections, LongAdder::sum)
+                .description("Operations rejected because threads and queue of the bulkhead were full")
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public double getSaturation() {
+        int capacity = executor.getMaximumPoolSize() + queueCapacity;
+        return (double) (executor.getActiveCount() + executor.getQueue().size()) / capacity;
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException exc) {
+            Throwable cause = exc.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException exc) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            String errorMessage = String.format("Interrupted while waiting for %s operation", name);
+            log.info(errorMessage);
+            throw new QuotationServiceException(errorMessage);
+        }
+    }
+}
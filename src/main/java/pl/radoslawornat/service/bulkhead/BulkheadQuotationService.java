@@ -0,0 +1,60 @@
+package pl.radoslawornat.service.bulkhead;
+
+import org.springframework.data.domain.Page;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+import pl.radoslawornat.service.QuotationService;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Runs reads and writes of the decorated service in separate bulkheads, so ingestion spikes only ever wait
+ * for the write budget and leave threads and connections of the read budget to list and lookup requests.
+ */
+public class BulkheadQuotationService implements QuotationService {
+
+    private final QuotationService quotationService;
+    private final Bulkhead readBulkhead;
+    private final Bulkhead writeBulkhead;
+
+    public BulkheadQuotationService(QuotationService quotationService, Bulkhead readBulkhead, Bulkhead writeBulkhead) {
+        this.quotationService = quotationService;
+        this.readBulkhead = readBulkhead;
+        this.writeBulkhead = writeBulkhead;
+    }
+
+    @Override
+    public Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                                     QuotationSort sort) {
+        return readBulkhead.call(() -> quotationService.listAllQuotations(pageNumber, pageSize, fields, sort));
+    }
+
+    @Override
+    public QuotationResource getQuotationById(String quotationId) {
+        return readBulkhead.call(() -> quotationService.getQuotationById(quotationId));
+    }
+
+    @Override
+    public QuotationLookupResult getQuotationsByIds(Collection<String> quotationIds) {
+        return readBulkhead.call(() -> quotationService.getQuotationsByIds(quotationIds));
+    }
+
+    @Override
+    public QuotationResource saveQuotation(QuotationDto quotationDto) {
+        return writeBulkhead.call(() -> quotationService.saveQuotation(quotationDto));
+    }
+
+    @Override
+    public QuotationResource updateQuotation(QuotationDto quotationDto, String quotationId) {
+        return writeBulkhead.call(() -> quotationService.updateQuotation(quotationDto, quotationId));
+    }
+
+    @Override
+    public void deleteQuotationById(String quotationId) {
+        writeBulkhead.run(() -> quotationService.deleteQuotationById(quotationId));
+    }
+}
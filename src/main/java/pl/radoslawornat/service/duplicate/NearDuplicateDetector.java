@@ -0,0 +1,198 @@
+package pl.radoslawornat.service.duplicate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.radoslawornat.cache.QuotationInvalidationBus;
+import pl.radoslawornat.cache.QuotationInvalidationListener;
+import pl.radoslawornat.config.datasource.PrimaryDataSourceContext;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.event.QuotationChangeType;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.QuotationRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional near-duplicate check of saved quotations backed by a {@link NearDuplicateIndex}.
+ * <p>
+ * Writes of this node are applied from their {@link QuotationChangedEvent} after commit. Writes of other nodes
+ * arrive as invalidations on the {@link QuotationInvalidationBus}; the invalidated quotation is read again from
+ * the primary. With the local bus a node only learns about its own writes, so several nodes sharing a database
+ * need the Postgres bus for the check to see each other's quotations. When invalidations may have been lost
+ * the index is rebuilt in the background and swapped in once complete.
+ * <p>
+ * A build reads the table from the primary in batches while writes go on. Quotations changed meanwhile are
+ * recorded and read again once the batches are loaded, so the index does not keep a row that a batch read before
+ * it was changed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class NearDuplicateDetector implements QuotationInvalidationListener {
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final QuotationRepository quotationRepository;
+    private final QuotationInvalidationBus invalidationBus;
+    private final double similarityThreshold;
+    private final boolean enabled;
+    private volatile NearDuplicateIndex nearDuplicateIndex;
+    private volatile Set<String> changedDuringBuild;
+    private volatile boolean built;
+
+    public NearDuplicateDetector(QuotationRepository quotationRepository,
+                                 QuotationInvalidationBus invalidationBus,
+                                 @Value("${quotations.near-duplicates.enabled}") boolean enabled,
+                                 @Value("${quotations.near-duplicates.similarity-threshold}") double similarityThreshold) {
+        this.quotationRepository = quotationRepository;
+        this.invalidationBus = invalidationBus;
+        this.similarityThreshold = similarityThreshold;
+        this.enabled = enabled;
+        this.nearDuplicateIndex = new NearDuplicateIndex(similarityThreshold);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled) {
+            invalidationBus.subscribe(this);
+        }
+    }
+
+    /**
+     * Returns the id of an existing quotation of the same author with nearly the same content.
+     */
+    public Optional<String> findNearDuplicate(String content, Author author) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return nearDuplicateIndex.findNearDuplicate(content, author.getFirstName(), author.getLastName());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        built = true;
+        synchronized (this) {
+            Set<String> changedIds = ConcurrentHashMap.newKeySet();
+            changedDuringBuild = changedIds;
+            try {
+                NearDuplicateIndex newIndex = new NearDuplicateIndex(similarityThreshold);
+                String afterId = "";
+                List<QuotationResource> batch;
+                do {
+                    String batchAfterId = afterId;
+                    batch = PrimaryDataSourceContext.callOnPrimary(() -> quotationRepository
+                            .findQuotationResourcesAfter(batchAfterId, PageRequest.of(0, BUILD_BATCH_SIZE)));
+                    batch.forEach(quotation -> index(newIndex, quotation));
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == BUILD_BATCH_SIZE);
+                nearDuplicateIndex = newIndex;
+                while (!changedIds.isEmpty()) {
+                    List<String> quotationIds = new ArrayList<>(changedIds);
+                    changedIds.removeAll(quotationIds);
+                    reload(quotationIds);
+                }
+                log.info("Indexed {} quotations for near-duplicate detection", newIndex.size());
+            } catch (DataAccessException | TransactionException exc) {
+                log.warn("Cannot build near-duplicate index due to: {}", exc.getMessage());
+            } finally {
+                changedDuringBuild = null;
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuotationChanged(QuotationChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        recordChange(event.getQuotationId());
+        if (event.getType() == QuotationChangeType.DELETED) {
+            nearDuplicateIndex.remove(event.getQuotationId());
+        } else {
+            index(nearDuplicateIndex, event.getQuotation());
+        }
+    }
+
+    /**
+     * Invalidations published inside a transaction of this node are skipped, the committed change follows
+     * as a {@link QuotationChangedEvent}.
+     */
+    @Override
+    public void onInvalidate(String quotationId, long version) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        recordChange(quotationId);
+        try {
+            reload(List.of(quotationId));
+        } catch (DataAccessException | TransactionException exc) {
+            log.warn("Cannot refresh quotation with id: {} in near-duplicate index due to: {}",
+                    quotationId, exc.getMessage());
+        }
+    }
+
+    /**
+     * Ignored until the first build, which reads everything anyway.
+     */
+    @Override
+    public void onResync() {
+        if (!built) {
+            return;
+        }
+        Thread rebuild = new Thread(this::build, "near-duplicate-index-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    private void recordChange(String quotationId) {
+        Set<String> changedIds = changedDuringBuild;
+        if (changedIds != null) {
+            changedIds.add(quotationId);
+        }
+    }
+
+    /**
+     * Reads the quotations from the primary, ids that no longer exist are removed from the index.
+     */
+    private void reload(List<String> quotationIds) {
+        for (int from = 0; from < quotationIds.size(); from += BUILD_BATCH_SIZE) {
+            List<String> batchIds = quotationIds.subList(from, Math.min(from + BUILD_BATCH_SIZE, quotationIds.size()));
+            List<QuotationResource> quotations = PrimaryDataSourceContext
+                    .callOnPrimary(() -> quotationRepository.findQuotationResourcesByIdIn(batchIds));
+            Set<String> deletedIds = new HashSet<>(batchIds);
+            NearDuplicateIndex index = nearDuplicateIndex;
+            for (QuotationResource quotation : quotations) {
+                deletedIds.remove(quotation.getId());
+                index(index, quotation);
+            }
+            deletedIds.forEach(index::remove);
+        }
+    }
+
+    private static void index(NearDuplicateIndex index, QuotationResource quotation) {
+        index.put(quotation.getId(), quotation.getContent(),
+                quotation.getAuthor().getFirstName(), quotation.getAuthor().getLastName());
+    }
+}
@@ -0,0 +1,197 @@
+package pl.radoslawornat.service.duplicate;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds quotations whose content is nearly the same as a given one, e.g. differs only in punctuation, case or
+ * whitespace, without comparing against every stored quotation.
+ * <p>
+ * Content is normalized and split into overlapping character shingles. A MinHash signature of {@value #HASHES}
+ * hashes estimates the Jaccard similarity of two shingle sets as the share of equal signature positions.
+ * Locality-sensitive hashing splits the signature into {@value #BANDS} bands of {@value #ROWS} rows and puts
+ * every quotation into one bucket per band; only quotations sharing at least one bucket are compared. With these
+ * numbers a pair becomes a candidate with a probability of about 95% at 0.8 similarity, almost surely at 0.9
+ * and only about 6% at 0.5. Content differing only in punctuation, case or whitespace normalizes to the same
+ * text and is always found.
+ * <p>
+ * Each signature position keeps only the top 16 bits of its minimum hash (b-bit minwise hashing), which keeps
+ * a signature at 256 bytes while accidental collisions stay negligible for the estimate.
+ * Lookups do not lock; changes are serialized, so buckets always match the stored signatures.
+ */
+public class NearDuplicateIndex {
+
+    static final int BANDS = 16;
+    static final int ROWS = 8;
+    static final int HASHES = BANDS * ROWS;
+    private static final int SHINGLE_SIZE = 5;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < HASHES; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            SEEDS[i] = mix(seed);
+        }
+    }
+
+    private final double similarityThreshold;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<String>> buckets = new ConcurrentHashMap<>();
+
+    public NearDuplicateIndex(double similarityThreshold) {
+        this.similarityThreshold = similarityThreshold;
+    }
+
+    /**
+     * Returns the id of an indexed quotation of the same author whose content is at least as similar
+     * as the threshold.
+     */
+    public Optional<String> findNearDuplicate(String content, String firstName, String lastName) {
+        short[] signature = signature(content);
+        String author = authorKey(firstName, lastName);
+        for (int band = 0; band < BANDS; band++) {
+            Set<String> bucket = buckets.get(bucketKey(band, signature));
+            if (bucket == null) {
+                continue;
+            }
+            for (String candidateId : bucket) {
+                Entry candidate = entries.get(candidateId);
+                if (candidate != null && candidate.author.equals(author)
+                        && similarity(signature, candidate.signature) >= similarityThreshold) {
+                    return Optional.of(candidateId);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public synchronized void put(String quotationId, String content, String firstName, String lastName) {
+        remove(quotationId);
+        Entry entry = new Entry(signature(content), authorKey(firstName, lastName));
+        entries.put(quotationId, entry);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(band, entry.signature), key -> ConcurrentHashMap.newKeySet())
+                    .add(quotationId);
+        }
+    }
+
+    public synchronized void remove(String quotationId) {
+        Entry entry = entries.remove(quotationId);
+        if (entry == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfPresent(bucketKey(band, entry.signature), (key, bucket) -> {
+                bucket.remove(quotationId);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    static double similarity(short[] first, short[] second) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    static short[] signature(String content) {
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, -1L);
+        for (long shingle : shingles(normalize(content))) {
+            for (int i = 0; i < HASHES; i++) {
+                long hash = mix(shingle ^ SEEDS[i]);
+                if (Long.compareUnsigned(hash, minimums[i]) < 0) {
+                    minimums[i] = hash;
+                }
+            }
+        }
+        short[] signature = new short[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = (short) (minimums[i] >>> 48);
+        }
+        return signature;
+    }
+
+    /**
+     * Lower case letters and digits separated by single spaces, everything else is dropped.
+     */
+    static String normalize(String content) {
+        StringBuilder normalized = new StringBuilder(content.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (Character.isWhitespace(codePoint)) {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static long[] shingles(String normalized) {
+        if (normalized.length() <= SHINGLE_SIZE) {
+            return new long[]{hash(normalized, 0, normalized.length())};
+        }
+        long[] shingles = new long[normalized.length() - SHINGLE_SIZE + 1];
+        for (int start = 0; start < shingles.length; start++) {
+            shingles[start] = hash(normalized, start, start + SHINGLE_SIZE);
+        }
+        return shingles;
+    }
+
+    private static long hash(String text, int start, int end) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private static long bucketKey(int band, short[] signature) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = key * 0x100000001B3L + signature[row];
+        }
+        return mix(key);
+    }
+
+    private static String authorKey(String firstName, String lastName) {
+        return firstName.trim().toLowerCase(Locale.ROOT) + '\u0000' + lastName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static final class Entry {
+        private final short[] signature;
+        private final String author;
+
+        private Entry(short[] signature, String author) {
+            this.signature = signature;
+            this.author = author;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package pl.radoslawornat.service.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.model.response.QuotationChangePage;
+import pl.radoslawornat.model.response.QuotationChangeResource;
+import pl.radoslawornat.repository.QuotationChangeRepository;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class QuotationChangeFeed {
+
+    private final QuotationChangeRepository quotationChangeRepository;
+
+    public QuotationChangeFeed(QuotationChangeRepository quotationChangeRepository) {
+        this.quotationChangeRepository = quotationChangeRepository;
+    }
+
+    /**
+     * Returns at most {@code limit} changes with a sequence number greater than {@code cursor}, oldest first.
+     */
+    public QuotationChangePage changesSince(long cursor, int limit) {
+        try {
+            List<QuotationChangeResource> changes =
+                    quotationChangeRepository.findChangesSince(cursor, PageRequest.of(0, limit + 1));
+            boolean hasMore = changes.size() > limit;
+            if (hasMore) {
+                changes = changes.subList(0, limit);
+            }
+            long nextCursor = changes.isEmpty() ? cursor : changes.get(changes.size() - 1).getSeq();
+            return new QuotationChangePage(changes, nextCursor, hasMore);
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage = "Problem occurred by attempt to list quotation changes";
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pl.radoslawornat.service.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.repository.QuotationChangeRepository;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Appends every write to the change log in the transaction of the write itself. The sequence number is taken
+ * right before commit, because the sequence row stays locked from then on until the write commits.
+ * <p>
+ * The lock serializes the commits of all writes of all nodes: writes cannot commit faster than one round trip
+ * for the append plus one commit of the database at a time, whatever the number of connections. The storage
+ * benchmark measures this ceiling as "change sequence". Taking the number at the end keeps the time under the
+ * lock short, but a write rate near the ceiling needs a sequence and a commit-ordered read watermark instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class QuotationChangeRecorder {
+
+    private final QuotationChangeRepository quotationChangeRepository;
+
+    public QuotationChangeRecorder(QuotationChangeRepository quotationChangeRepository) {
+        this.quotationChangeRepository = quotationChangeRepository;
+    }
+
+    @PostConstruct
+    public void initializeSequence() {
+        try {
+            quotationChangeRepository.initializeSequence();
+        } catch (DataIntegrityViolationException exc) {
+            log.debug("Change log sequence initialized by another node");
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void record(QuotationChangedEvent event) {
+        if (quotationChangeRepository.incrementSequence() == 0) {
+            throw new QuotationServiceException("Change log sequence is missing, cannot record quotation change");
+        }
+        quotationChangeRepository.append(event.getQuotationId(), event.getType().name());
+    }
+}
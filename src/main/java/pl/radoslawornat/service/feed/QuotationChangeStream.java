@@ -0,0 +1,144 @@
+package pl.radoslawornat.service.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.radoslawornat.model.response.QuotationChangePage;
+import pl.radoslawornat.model.response.QuotationChangeResource;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Pushes the change feed to Server-Sent Events subscribers. One thread polls the feed; subscribers standing
+ * at the same cursor share a single query, so clients that are caught up cost one query per poll in total.
+ * Every event carries its sequence number as the event id, reconnecting clients resume from
+ * {@code Last-Event-ID}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
+public class QuotationChangeStream {
+
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final QuotationChangeFeed quotationChangeFeed;
+    private final Duration pollInterval;
+    private final Duration heartbeatInterval;
+    private final Duration timeout;
+    private final int batchSize;
+    private final Queue<Subscriber> subscribers = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService poller;
+
+    public QuotationChangeStream(QuotationChangeFeed quotationChangeFeed,
+                                 @Value("${quotations.changes.stream.poll-interval}") Duration pollInterval,
+                                 @Value("${quotations.changes.stream.heartbeat-interval}") Duration heartbeatInterval,
+                                 @Value("${quotations.changes.stream.timeout}") Duration timeout,
+                                 @Value("${quotations.changes.stream.batch-size}") int batchSize) {
+        this.quotationChangeFeed = quotationChangeFeed;
+        this.pollInterval = pollInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.timeout = timeout;
+        this.batchSize = batchSize;
+    }
+
+    public SseEmitter subscribe(long cursor) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(exc -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.debug("New subscriber of quotation changes since: {}", cursor);
+        return emitter;
+    }
+
+    @PostConstruct
+    public void start() {
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "quotation-change-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void poll() {
+        try {
+            Map<Long, List<Subscriber>> subscribersByCursor =
+                    subscribers.stream().collect(groupingBy(subscriber -> subscriber.cursor));
+            subscribersByCursor.forEach(this::push);
+        } catch (RuntimeException exc) {
+            log.warn("Cannot push quotation changes to subscribers due to: {}", exc.getMessage());
+        }
+    }
+
+    private void push(long cursor, List<Subscriber> group) {
+        QuotationChangePage page;
+        do {
+            page = quotationChangeFeed.changesSince(cursor, batchSize);
+            for (Subscriber subscriber : group) {
+                send(subscriber, page);
+            }
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+    }
+
+    private void send(Subscriber subscriber, QuotationChangePage page) {
+        try {
+            if (page.getChanges().isEmpty()) {
+                long now = System.nanoTime();
+                if (now - subscriber.lastSentNanos >= heartbeatInterval.toNanos()) {
+                    subscriber.emitter.send(SseEmitter.event().comment(HEARTBEAT));
+                    subscriber.lastSentNanos = now;
+                }
+                return;
+            }
+            for (QuotationChangeResource change : page.getChanges()) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSeq()))
+                        .name(change.getType().name())
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+            subscriber.cursor = page.getNextCursor();
+            subscriber.lastSentNanos = System.nanoTime();
+        } catch (IOException | IllegalStateException exc) {
+            log.debug("Dropping subscriber of quotation changes due to: {}", exc.getMessage());
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private volatile long cursor;
+        private volatile long lastSentNanos = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
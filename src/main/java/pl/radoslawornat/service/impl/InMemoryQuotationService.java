@@ -0,0 +1,152 @@
+package pl.radoslawornat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
+import pl.radoslawornat.model.exception.QuotationNotFoundException;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.model.exception.QuotationSortNotSupportedException;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+import pl.radoslawornat.repository.memory.InMemoryQuotationStore;
+import pl.radoslawornat.service.QuotationService;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * {@link QuotationService} on top of the embedded {@link InMemoryQuotationStore}, for small deployments and
+ * integration tests running without Postgres. Saving the same content of the same author twice is rejected with
+ * the error of the database backed service; the store's hash index on content and author takes the part of the
+ * unique index. Published changes carry the version the store keeps with every quotation.
+ */
+@Slf4j
+public class InMemoryQuotationService implements QuotationService {
+
+    public static final String SORT_NOT_SUPPORTED =
+            "Quotations kept in the embedded storage can only be sorted by id or created";
+
+    private final InMemoryQuotationStore quotationStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InMemoryQuotationService(InMemoryQuotationStore quotationStore, ApplicationEventPublisher eventPublisher) {
+        this.quotationStore = quotationStore;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                                     QuotationSort sort) {
+        if (!InMemoryQuotationStore.supports(sort.getKey())) {
+            log.info("Attempt to sort quotations of the embedded storage by {}", sort.getKey().getParameterName());
+            throw new QuotationSortNotSupportedException(SORT_NOT_SUPPORTED);
+        }
+        List<QuotationResource> quotations = quotationStore.findAll(sort, (long) pageNumber * pageSize, pageSize)
+                .stream()
+                .map(quotation -> quotation.narrowTo(fields))
+                .collect(Collectors.toList());
+        return new PageImpl<>(quotations, PageRequest.of(pageNumber, pageSize, sort.toSort()), quotationStore.count());
+    }
+
+    @Override
+    public QuotationResource getQuotationById(String quotationId) {
+        return quotationStore.findById(quotationId)
+                .orElseThrow(() -> {
+                    String errorMessage = String.format("Cannot find quotation with id: %s", quotationId);
+                    log.info(errorMessage);
+                    return new QuotationNotFoundException(errorMessage);
+                });
+    }
+
+    @Override
+    public QuotationLookupResult getQuotationsByIds(Collection<String> quotationIds) {
+        return QuotationLookupResult.inRequestedOrder(quotationIds,
+                quotationId -> quotationStore.findById(quotationId).orElse(null));
+    }
+
+    @Override
+    public QuotationResource saveQuotation(QuotationDto quotationDto) {
+        QuotationResource quotation = toResource(UUID.randomUUID().toString(), quotationDto);
+        log.info("Attempt to save new quotation of author: {} {}",
+                quotation.getAuthor().getFirstName(), quotation.getAuthor().getLastName());
+        try {
+            if (!quotationStore.insert(quotation)) {
+                String warningMessage = "Attempt to add quotation that already exists";
+                log.info(warningMessage);
+                throw new QuotationAlreadyExistsException(warningMessage);
+            }
+        } catch (UncheckedIOException exc) {
+            String errorMessage = "Problem occurred by attempt to save new quotation";
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        eventPublisher.publishEvent(QuotationChangedEvent.created(quotation, 0));
+        return quotation;
+    }
+
+    @Override
+    public QuotationResource updateQuotation(QuotationDto quotationDto, String quotationId) {
+        if (isNull(quotationId)) {
+            String errorMessage = "Attempt to update quotation with passed null id";
+            log.info(errorMessage);
+            throw new QuotationServiceException(errorMessage);
+        }
+        QuotationResource quotation = toResource(quotationId, quotationDto);
+        log.info("Attempt to update quotation with id: {}", quotationId);
+        Optional<Long> version;
+        try {
+            version = quotationStore.update(quotation);
+        } catch (UncheckedIOException exc) {
+            String errorMessage =
+                    String.format("Problem occurred by attempt to update quotation with id: %s", quotationId);
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        if (version.isEmpty()) {
+            String errorMessage = String.format("Cannot find quotation with id %s to update quotation", quotationId);
+            log.info(errorMessage);
+            throw new QuotationNotFoundException(errorMessage);
+        }
+        eventPublisher.publishEvent(QuotationChangedEvent.updated(quotation, version.get()));
+        return quotation;
+    }
+
+    @Override
+    public void deleteQuotationById(String quotationId) {
+        log.info("Attempt to delete quotation with id: {}", quotationId);
+        try {
+            if (!quotationStore.delete(quotationId)) {
+                String errorMessage =
+                        String.format("Cannot find quotation with id: %s to delete quotation", quotationId);
+                log.info(errorMessage);
+                throw new QuotationNotFoundException(errorMessage);
+            }
+        } catch (UncheckedIOException exc) {
+            String errorMessage =
+                    String.format("Problem occurred by attempt to delete quotation with id %s", quotationId);
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        eventPublisher.publishEvent(QuotationChangedEvent.deleted(quotationId));
+    }
+
+    private static QuotationResource toResource(String quotationId, QuotationDto quotationDto) {
+        Author author = quotationDto.getAuthor();
+        return new QuotationResource(quotationId, quotationDto.getContent(), author.getFirstName(), author.getLastName());
+    }
+}
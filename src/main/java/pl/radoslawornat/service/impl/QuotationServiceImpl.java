@@ -1,66 +1,176 @@
 package pl.radoslawornat.service.impl;
 
+import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.support.PagedListHolder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.radoslawornat.cache.QuotationCache;
+import pl.radoslawornat.config.datasource.PrimaryDataSourceContext;
+import pl.radoslawornat.model.Author;
 import pl.radoslawornat.model.Quotation;
 import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
 import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
 import pl.radoslawornat.model.exception.QuotationNotFoundException;
 import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.model.generator.CustomIdGenerator;
 import pl.radoslawornat.model.mapper.QuotationMapper;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
 import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
 import pl.radoslawornat.repository.QuotationRepository;
 import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.author.AuthorDictionary;
+import pl.radoslawornat.service.concurrent.SingleFlight;
+import pl.radoslawornat.service.duplicate.NearDuplicateDetector;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "quotations.storage", havingValue = "jpa", matchIfMissing = true)
 public class QuotationServiceImpl implements QuotationService {
 
     private final QuotationRepository quotationRepository;
     private final QuotationMapper quotationMapper;
+    private final AuthorDictionary authorDictionary;
+    private final NearDuplicateDetector nearDuplicateDetector;
+    private final QuotationCache quotationCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<PageKey, Page<QuotationResource>> listQuotationsFlight = new SingleFlight<>();
 
-    public QuotationServiceImpl(QuotationRepository quotationRepository, QuotationMapper quotationMapper) {
+    public QuotationServiceImpl(QuotationRepository quotationRepository,
+                                QuotationMapper quotationMapper,
+                                AuthorDictionary authorDictionary,
+                                NearDuplicateDetector nearDuplicateDetector,
+                                QuotationCache quotationCache,
+                                ApplicationEventPublisher eventPublisher) {
         this.quotationRepository = quotationRepository;
         this.quotationMapper = quotationMapper;
+        this.authorDictionary = authorDictionary;
+        this.nearDuplicateDetector = nearDuplicateDetector;
+        this.quotationCache = quotationCache;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Concurrent requests for the same page, fields and order share one database call. Not transactional on purpose:
+     * the repository opens its own read-only transaction, so callers waiting for a shared result
+     * do not hold a connection. A request that has to read its own writes never joins a call in progress,
+     * which may have started before the write.
+     */
     @Override
-    public Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize) {
+    public Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                                     QuotationSort sort) {
+        if (PrimaryDataSourceContext.isPrimaryRequired()) {
+            return loadQuotations(pageNumber, pageSize, fields, sort);
+        }
+        return listQuotationsFlight.execute(new PageKey(pageNumber, pageSize, fields, sort),
+                () -> loadQuotations(pageNumber, pageSize, fields, sort));
+    }
+
+    /**
+     * Served from the node-local cache when possible. A cache miss is read from the primary: a lagging replica
+     * could return a row older than a tombstone that has already expired or was dropped by a resync,
+     * and the cache would keep it.
+     */
+    @Override
+    public QuotationResource getQuotationById(String quotationId) {
+        Optional<QuotationResource> cachedQuotation = quotationCache.get(quotationId);
+        if (cachedQuotation.isPresent()) {
+            return cachedQuotation.get();
+        }
         try {
-            Pageable pageable = PageRequest.of(pageNumber, pageSize);
-            Page<Quotation> quotations = quotationRepository.findAll(pageable);
-            List<QuotationResource> quotationResourceList = quotations.getContent().stream()
-                    .map(quotation -> quotationMapper.map(quotation, QuotationResource.class))
-                    .collect(Collectors.toList());
-            return paginateQuotations(quotationResourceList, quotations, pageNumber);
+            Quotation quotation = PrimaryDataSourceContext
+                    .callOnPrimary(() -> quotationRepository.findWithAuthorById(quotationId))
+                    .orElseThrow(() -> {
+                        String errorMessage = String.format("Cannot find quotation with id: %s", quotationId);
+                        log.info(errorMessage);
+                        return new QuotationNotFoundException(errorMessage);
+                    });
+            return cacheQuotation(quotation);
         } catch (NonTransientDataAccessException exc) {
-            String errorMessage = "Problem occurred by attempt to list quotations";
+            String errorMessage = String.format("Problem occurred by attempt to find quotation with id: %s", quotationId);
             log.error(errorMessage + " due to: " + exc.getMessage());
             throw new QuotationServiceException(errorMessage);
         }
     }
 
+    /**
+     * Ids found in the cache are not sent to the database, the rest is resolved with one query to the primary,
+     * like the misses of {@link #getQuotationById}. Repeated ids are resolved and returned once.
+     */
     @Override
+    public QuotationLookupResult getQuotationsByIds(Collection<String> quotationIds) {
+        Set<String> requestedIds = new LinkedHashSet<>(quotationIds);
+        Map<String, QuotationResource> foundQuotations = new HashMap<>();
+        List<String> cacheMisses = new ArrayList<>();
+        for (String quotationId : requestedIds) {
+            Optional<QuotationResource> cachedQuotation = quotationCache.get(quotationId);
+            if (cachedQuotation.isPresent()) {
+                foundQuotations.put(quotationId, cachedQuotation.get());
+            } else {
+                cacheMisses.add(quotationId);
+            }
+        }
+        if (!cacheMisses.isEmpty()) {
+            try {
+                List<Quotation> storedQuotations = PrimaryDataSourceContext
+                        .callOnPrimary(() -> quotationRepository.findWithAuthorByIdIn(cacheMisses));
+                for (Quotation quotation : storedQuotations) {
+                    foundQuotations.put(quotation.getId(), cacheQuotation(quotation));
+                }
+            } catch (NonTransientDataAccessException exc) {
+                String errorMessage = String.format("Problem occurred by attempt to find %s quotations by id",
+                        cacheMisses.size());
+                log.error(errorMessage + " due to: " + exc.getMessage());
+                throw new QuotationServiceException(errorMessage);
+            }
+        }
+        return QuotationLookupResult.inRequestedOrder(requestedIds, foundQuotations::get);
+    }
+
+    /**
+     * The duplicate check and the insert are one statement, see {@link QuotationRepository#insertIfAbsent}.
+     * A concurrent save of the same quotation that passed the check as well is rejected by the unique constraint.
+     */
+    @Override
+    @Transactional
     public QuotationResource saveQuotation(QuotationDto quotationDto) {
         try {
             Quotation quotation = new Quotation(quotationDto);
             Quotation validQuotation = validateQuotationToSave(quotation);
-            log.info("Attempt to save new quotation of author: {} {}",
-                    validQuotation.getAuthor().getFirstName(), validQuotation.getAuthor().getLastName());
-            Quotation savedQuotation = quotationRepository.save(validQuotation);
-            return quotationMapper.map(savedQuotation, QuotationResource.class);
+            Author author = authorDictionary.resolve(quotationDto.getAuthor());
+            String quotationId = CustomIdGenerator.nextId();
+            log.info("Attempt to save new quotation of author: {} {}", author.getFirstName(), author.getLastName());
+            int inserted = insertIfAbsent(quotationId, validQuotation.getContent(), author);
+            if (inserted == 0) {
+                String warningMessage = "Attempt to add quotation that already exists";
+                log.info(warningMessage);
+                throw new QuotationAlreadyExistsException(warningMessage);
+            }
+            QuotationResource savedResource = new QuotationResource(quotationId, validQuotation.getContent(),
+                    author.getFirstName(), author.getLastName());
+            eventPublisher.publishEvent(QuotationChangedEvent.created(savedResource, 0));
+            return savedResource;
         } catch (NonTransientDataAccessException exc) {
             String errorMessage = "Problem occurred by attempt to save new quotation";
             log.error(errorMessage + " due to: " + exc.getMessage());
@@ -68,34 +178,49 @@ public class QuotationServiceImpl implements QuotationService {
         }
     }
 
+    /**
+     * A quotation that does not exist is recognized by no row being updated. The version incremented
+     * by the update is read back within the transaction and published with the change.
+     */
     @Override
+    @Transactional
     public QuotationResource updateQuotation(QuotationDto quotationDto, String quotationId) {
         try {
-            Quotation quotation = new Quotation(quotationDto);
-            Quotation validQuotation = validateQuotationToUpdate(quotation, quotationId);
-            quotation.setId(quotationId);
+            validateQuotationIdToUpdate(quotationId);
+            Author author = authorDictionary.resolve(quotationDto.getAuthor());
             log.info("Attempt to update quotation with id: {}", quotationId);
-            Quotation updatedQuotation = quotationRepository.save(validQuotation);
-            return quotationMapper.map(updatedQuotation, QuotationResource.class);
+            int updated = quotationRepository.updateQuotation(quotationId, quotationDto.getContent(),
+                    Quotation.contentHash(quotationDto.getContent()), author);
+            Optional<Long> version = updated == 0 ? Optional.empty() : quotationRepository.findVersionById(quotationId);
+            if (version.isEmpty()) {
+                String errorMessage = String.format("Cannot find quotation with id %s to update quotation", quotationId);
+                log.info(errorMessage);
+                throw new QuotationNotFoundException(errorMessage);
+            }
+            QuotationResource updatedResource = new QuotationResource(quotationId, quotationDto.getContent(),
+                    author.getFirstName(), author.getLastName());
+            eventPublisher.publishEvent(QuotationChangedEvent.updated(updatedResource, version.get()));
+            return updatedResource;
         } catch (NonTransientDataAccessException exc) {
             String errorMessage =
-                    String.format("Problem occurred by attempt to update quotation with id: {}", quotationId);
+                    String.format("Problem occurred by attempt to update quotation with id: %s", quotationId);
             log.error(errorMessage + " due to: " + exc.getMessage());
             throw new QuotationServiceException(errorMessage);
         }
     }
 
     @Override
+    @Transactional
     public void deleteQuotationById(String quotationId) {
         try {
-            if (!quotationRepository.existsById(quotationId)) {
+            log.info("Attempt to delete quotation with id: {}", quotationId);
+            if (quotationRepository.deleteQuotation(quotationId) == 0) {
                 String errorMessage =
                         String.format("Cannot find quotation with id: %s to delete quotation", quotationId);
                 log.info(errorMessage);
                 throw new QuotationNotFoundException(errorMessage);
             }
-            log.info("Attempt to delete quotation with id: {}", quotationId);
-            quotationRepository.deleteById(quotationId);
+            eventPublisher.publishEvent(QuotationChangedEvent.deleted(quotationId));
         } catch (NonTransientDataAccessException exc) {
             String errorMessage =
                     String.format("Problem occurred by attempt to delete quotation with id %s", quotationId);
@@ -104,44 +229,75 @@ public class QuotationServiceImpl implements QuotationService {
         }
     }
 
-    private Quotation validateQuotationToUpdate(Quotation quotation, String quotationId) {
-        if (nonNull(quotationId)) {
-            if (!quotationRepository.existsById(quotationId)) {
-                String errorMessage = String.format("Cannot find quotation with id %s to update quotation", quotationId);
-                log.info(errorMessage);
-                throw new QuotationNotFoundException(errorMessage);
+    private Page<QuotationResource> loadQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                                   QuotationSort sort) {
+        try {
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, sort.toSort());
+            if (fields.containsAll(QuotationField.ALL)) {
+                return quotationRepository.findAllQuotationResources(pageable);
             }
-        } else {
+            return quotationRepository.findQuotationResources(fields, pageable);
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage = "Problem occurred by attempt to list quotations";
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+    }
+
+    /**
+     * Rows read from the database enter the cache with their version, so they never replace a newer entry
+     * or a tombstone of a deletion.
+     */
+    private QuotationResource cacheQuotation(Quotation quotation) {
+        QuotationResource quotationResource = quotationMapper.map(quotation);
+        long version = nonNull(quotation.getVersion()) ? quotation.getVersion() : 0;
+        quotationCache.put(quotationResource, version);
+        return quotationResource;
+    }
+
+    private int insertIfAbsent(String quotationId, String content, Author author) {
+        try {
+            return quotationRepository.insertIfAbsent(quotationId, content, Quotation.contentHash(content),
+                    author.getId(), author.getFirstName(), author.getLastName());
+        } catch (DataIntegrityViolationException exc) {
+            log.debug("Concurrent save of the same quotation rejected due to: {}", exc.getMessage());
+            return 0;
+        }
+    }
+
+    private void validateQuotationIdToUpdate(String quotationId) {
+        if (isNull(quotationId)) {
             String errorMessage = "Attempt to update quotation with passed null id";
             log.info(errorMessage);
             throw new QuotationServiceException(errorMessage);
         }
-        return quotation;
     }
 
     private Quotation validateQuotationToSave(Quotation quotation) {
-        if (checkWhetherQuotationAlreadyExists(quotation)) {
-            String warningMessage = "Attempt to add quotation that already exists";
+        Optional<String> nearDuplicateId =
+                nearDuplicateDetector.findNearDuplicate(quotation.getContent(), quotation.getAuthor());
+        if (nearDuplicateId.isPresent()) {
+            String warningMessage =
+                    String.format("Attempt to add quotation that nearly duplicates quotation with id: %s",
+                            nearDuplicateId.get());
             log.info(warningMessage);
             throw new QuotationAlreadyExistsException(warningMessage);
         }
         return quotation;
     }
 
-    private boolean checkWhetherQuotationAlreadyExists(Quotation quotation) {
-        Optional<Quotation> checkedQuotation
-                = quotationRepository.findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                quotation.getContent(), quotation.getAuthor().getFirstName(), quotation.getAuthor().getLastName()
-        );
-        return checkedQuotation.isPresent();
-    }
+    @EqualsAndHashCode
+    private static final class PageKey {
+        private final int pageNumber;
+        private final int pageSize;
+        private final Set<QuotationField> fields;
+        private final QuotationSort sort;
 
-    private Page<QuotationResource> paginateQuotations(List<QuotationResource> quotationsResources,
-                                                       Page<Quotation> quotationsPage,
-                                                       int page) {
-        PagedListHolder<QuotationResource> listHolder = new PagedListHolder<>(quotationsResources);
-        listHolder.setPage(page);
-        listHolder.setPageSize(quotationsPage.getSize());
-        return new PageImpl<>(listHolder.getPageList(), quotationsPage.getPageable(), quotationsPage.getTotalElements());
+        private PageKey(int pageNumber, int pageSize, Set<QuotationField> fields, QuotationSort sort) {
+            this.pageNumber = pageNumber;
+            this.pageSize = pageSize;
+            this.fields = fields;
+            this.sort = sort;
+        }
     }
 }
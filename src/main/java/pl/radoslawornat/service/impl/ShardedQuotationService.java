@@ -0,0 +1,271 @@
+package pl.radoslawornat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
+import pl.radoslawornat.model.exception.QuotationNotFoundException;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.model.exception.QuotationSortNotSupportedException;
+import pl.radoslawornat.model.generator.CustomIdGenerator;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+import pl.radoslawornat.repository.shard.QuotationShard;
+import pl.radoslawornat.repository.shard.QuotationShards;
+import pl.radoslawornat.repository.shard.ShardRouter;
+import pl.radoslawornat.repository.shard.ShardedQuotation;
+import pl.radoslawornat.service.QuotationService;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * {@link QuotationService} spreading quotations over several databases. A quotation is stored on the shard chosen
+ * by the hash of its id, the content and author uniqueness rule is enforced by a claim stored on the shard chosen
+ * by the hash of the content and author. A save takes the claim first and releases it again when the quotation
+ * cannot be stored, there is no distributed transaction.
+ * <p>
+ * A write interrupted between its statements can leave a claim behind whose quotation does not exist or has
+ * other content by now. A save finding such a stale claim takes it over. Its quotation may still be about to be
+ * inserted by a concurrent save, so each save checks after its insert that it still holds the claim and deletes
+ * its quotation again otherwise.
+ */
+@Slf4j
+public class ShardedQuotationService implements QuotationService {
+
+    public static final String SORT_NOT_SUPPORTED =
+            "Quotations kept in the sharded storage can only be sorted by id or created";
+
+    private final QuotationShards quotationShards;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ShardedQuotationService(QuotationShards quotationShards, ApplicationEventPublisher eventPublisher) {
+        this.quotationShards = quotationShards;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                                     QuotationSort sort) {
+        if (!QuotationShards.supports(sort.getKey())) {
+            log.info("Attempt to sort quotations of the sharded storage by {}", sort.getKey().getParameterName());
+            throw new QuotationSortNotSupportedException(SORT_NOT_SUPPORTED);
+        }
+        try {
+            List<QuotationResource> quotations =
+                    quotationShards.findPage(sort, (long) pageNumber * pageSize, pageSize).stream()
+                            .map(quotation -> quotation.getQuotation().narrowTo(fields))
+                            .collect(Collectors.toList());
+            return new PageImpl<>(quotations, PageRequest.of(pageNumber, pageSize, sort.toSort()),
+                    quotationShards.count());
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage = "Problem occurred by attempt to list quotations";
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+    }
+
+    @Override
+    public QuotationResource getQuotationById(String quotationId) {
+        try {
+            return quotationShards.shardOfQuotation(quotationId).findById(quotationId)
+                    .map(ShardedQuotation::getQuotation)
+                    .orElseThrow(() -> {
+                        String errorMessage = String.format("Cannot find quotation with id: %s", quotationId);
+                        log.info(errorMessage);
+                        return new QuotationNotFoundException(errorMessage);
+                    });
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage = String.format("Problem occurred by attempt to find quotation with id: %s", quotationId);
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+    }
+
+    @Override
+    public QuotationLookupResult getQuotationsByIds(Collection<String> quotationIds) {
+        Set<String> requestedIds = new LinkedHashSet<>(quotationIds);
+        Map<String, ShardedQuotation> found;
+        try {
+            found = quotationShards.findByIds(requestedIds);
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage = String.format("Problem occurred by attempt to find %s quotations by id",
+                    requestedIds.size());
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        return QuotationLookupResult.inRequestedOrder(requestedIds, quotationId -> {
+            ShardedQuotation quotation = found.get(quotationId);
+            return quotation == null ? null : quotation.getQuotation();
+        });
+    }
+
+    @Override
+    public QuotationResource saveQuotation(QuotationDto quotationDto) {
+        QuotationResource quotation = toResource(CustomIdGenerator.nextId(), quotationDto);
+        log.info("Attempt to save new quotation of author: {} {}",
+                quotation.getAuthor().getFirstName(), quotation.getAuthor().getLastName());
+        String claimKey = claimKey(quotation);
+        QuotationShard claimShard = quotationShards.shardOfClaim(claimKey);
+        try {
+            if (!claim(claimShard, claimKey, quotation.getId())) {
+                throw quotationAlreadyExists();
+            }
+            QuotationShard quotationShard = quotationShards.shardOfQuotation(quotation.getId());
+            Instant now = now();
+            try {
+                quotationShard.insert(new ShardedQuotation(quotation, now, now, 0));
+            } catch (RuntimeException exc) {
+                claimShard.release(claimKey, quotation.getId());
+                throw exc;
+            }
+            if (!claimShard.findClaimHolder(claimKey).filter(quotation.getId()::equals).isPresent()) {
+                quotationShard.delete(quotation.getId());
+                throw quotationAlreadyExists();
+            }
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage = "Problem occurred by attempt to save new quotation";
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        eventPublisher.publishEvent(QuotationChangedEvent.created(quotation, 0));
+        return quotation;
+    }
+
+    /**
+     * Like the database backed service an update does not enforce the uniqueness rule, the claim only follows
+     * the new content and author unless another quotation holds it already. The update increments the version of
+     * the row it read and is retried when a concurrent update got that version first.
+     */
+    @Override
+    public QuotationResource updateQuotation(QuotationDto quotationDto, String quotationId) {
+        if (isNull(quotationId)) {
+            String errorMessage = "Attempt to update quotation with passed null id";
+            log.info(errorMessage);
+            throw new QuotationServiceException(errorMessage);
+        }
+        QuotationResource quotation = toResource(quotationId, quotationDto);
+        log.info("Attempt to update quotation with id: {}", quotationId);
+        QuotationShard shard = quotationShards.shardOfQuotation(quotationId);
+        ShardedQuotation current;
+        ShardedQuotation updated;
+        try {
+            do {
+                current = shard.findById(quotationId).orElse(null);
+                if (current == null) {
+                    String errorMessage =
+                            String.format("Cannot find quotation with id %s to update quotation", quotationId);
+                    log.info(errorMessage);
+                    throw new QuotationNotFoundException(errorMessage);
+                }
+                updated = new ShardedQuotation(quotation, current.getCreatedAt(), now(), current.getVersion() + 1);
+            } while (!shard.update(updated));
+            String previousClaimKey = claimKey(current.getQuotation());
+            String claimKey = claimKey(quotation);
+            if (!previousClaimKey.equals(claimKey)) {
+                quotationShards.shardOfClaim(previousClaimKey).release(previousClaimKey, quotationId);
+                claim(quotationShards.shardOfClaim(claimKey), claimKey, quotationId);
+            }
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage =
+                    String.format("Problem occurred by attempt to update quotation with id: %s", quotationId);
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        eventPublisher.publishEvent(QuotationChangedEvent.updated(quotation, updated.getVersion()));
+        return quotation;
+    }
+
+    @Override
+    public void deleteQuotationById(String quotationId) {
+        log.info("Attempt to delete quotation with id: {}", quotationId);
+        QuotationShard shard = quotationShards.shardOfQuotation(quotationId);
+        try {
+            ShardedQuotation current = shard.findById(quotationId).orElse(null);
+            if (current == null || !shard.delete(quotationId)) {
+                String errorMessage =
+                        String.format("Cannot find quotation with id: %s to delete quotation", quotationId);
+                log.info(errorMessage);
+                throw new QuotationNotFoundException(errorMessage);
+            }
+            String claimKey = claimKey(current.getQuotation());
+            quotationShards.shardOfClaim(claimKey).release(claimKey, quotationId);
+        } catch (NonTransientDataAccessException exc) {
+            String errorMessage =
+                    String.format("Problem occurred by attempt to delete quotation with id %s", quotationId);
+            log.error(errorMessage + " due to: " + exc.getMessage());
+            throw new QuotationServiceException(errorMessage);
+        }
+        eventPublisher.publishEvent(QuotationChangedEvent.deleted(quotationId));
+    }
+
+    /**
+     * Takes the claim, or takes it over when it is held by a quotation that does not exist or whose content and
+     * author no longer match the key. A holder stored while the claim was taken over gets it back.
+     */
+    private boolean claim(QuotationShard claimShard, String claimKey, String quotationId) {
+        if (claimShard.claim(claimKey, quotationId)) {
+            return true;
+        }
+        Optional<String> holderId = claimShard.findClaimHolder(claimKey);
+        if (holderId.isEmpty()) {
+            return claimShard.claim(claimKey, quotationId);
+        }
+        if (matchesClaim(holderId.get(), claimKey)
+                || !claimShard.transferClaim(claimKey, holderId.get(), quotationId)) {
+            return false;
+        }
+        if (matchesClaim(holderId.get(), claimKey)) {
+            claimShard.transferClaim(claimKey, quotationId, holderId.get());
+            return false;
+        }
+        log.info("Took over stale claim of quotation with id: {}", holderId.get());
+        return true;
+    }
+
+    private boolean matchesClaim(String quotationId, String claimKey) {
+        return quotationShards.shardOfQuotation(quotationId).findById(quotationId)
+                .filter(quotation -> claimKey(quotation.getQuotation()).equals(claimKey))
+                .isPresent();
+    }
+
+    private static QuotationAlreadyExistsException quotationAlreadyExists() {
+        String warningMessage = "Attempt to add quotation that already exists";
+        log.info(warningMessage);
+        return new QuotationAlreadyExistsException(warningMessage);
+    }
+
+    private static String claimKey(QuotationResource quotation) {
+        return ShardRouter.claimKey(quotation.getContent(),
+                quotation.getAuthor().getFirstName(), quotation.getAuthor().getLastName());
+    }
+
+    /**
+     * Truncated to the precision of a Postgres timestamp, so the value read back equals the one written.
+     */
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static QuotationResource toResource(String quotationId, QuotationDto quotationDto) {
+        Author author = quotationDto.getAuthor();
+        return new QuotationResource(quotationId, quotationDto.getContent(), author.getFirstName(), author.getLastName());
+    }
+}
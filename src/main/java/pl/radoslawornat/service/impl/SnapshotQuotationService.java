@@ -0,0 +1,94 @@
+package pl.radoslawornat.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.exception.QuotationNotFoundException;
+import pl.radoslawornat.model.exception.QuotationSortNotSupportedException;
+import pl.radoslawornat.model.exception.QuotationStorageReadOnlyException;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+import pl.radoslawornat.repository.snapshot.QuotationSnapshot;
+import pl.radoslawornat.service.QuotationService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves quotations of an edge node straight from a memory-mapped snapshot. Writes are rejected,
+ * the snapshot is replaced by exporting a new one on a node backed by the database.
+ */
+@Slf4j
+public class SnapshotQuotationService implements QuotationService {
+
+    public static final String READ_ONLY =
+            "This node serves a read-only snapshot of quotations. Please send writes to the primary service";
+    public static final String SORT_NOT_SUPPORTED =
+            "This node serves a read-only snapshot of quotations which can only be sorted by id";
+
+    private final QuotationSnapshot quotationSnapshot;
+
+    public SnapshotQuotationService(QuotationSnapshot quotationSnapshot) {
+        this.quotationSnapshot = quotationSnapshot;
+    }
+
+    /**
+     * Records are exported in the order of their ids, the only order the snapshot can list without sorting.
+     */
+    @Override
+    public Page<QuotationResource> listAllQuotations(int pageNumber, int pageSize, Set<QuotationField> fields,
+                                                     QuotationSort sort) {
+        if (sort.getKey() != QuotationSort.Key.ID) {
+            log.info("Attempt to sort snapshot quotations by {}", sort.getKey().getParameterName());
+            throw new QuotationSortNotSupportedException(SORT_NOT_SUPPORTED);
+        }
+        boolean descending = sort.getDirection() == Sort.Direction.DESC;
+        int size = quotationSnapshot.size();
+        int firstRecord = (int) Math.min((long) pageNumber * pageSize, size);
+        int lastRecord = (int) Math.min((long) firstRecord + pageSize, size);
+        List<QuotationResource> quotations = new ArrayList<>(lastRecord - firstRecord);
+        for (int position = firstRecord; position < lastRecord; position++) {
+            int recordNumber = descending ? size - 1 - position : position;
+            quotations.add(quotationSnapshot.read(recordNumber, fields));
+        }
+        return new PageImpl<>(quotations, PageRequest.of(pageNumber, pageSize, sort.toSort()), size);
+    }
+
+    @Override
+    public QuotationResource getQuotationById(String quotationId) {
+        return quotationSnapshot.findById(quotationId, QuotationField.ALL)
+                .orElseThrow(() -> {
+                    String errorMessage = String.format("Cannot find quotation with id: %s", quotationId);
+                    log.info(errorMessage);
+                    return new QuotationNotFoundException(errorMessage);
+                });
+    }
+
+    @Override
+    public QuotationLookupResult getQuotationsByIds(Collection<String> quotationIds) {
+        return QuotationLookupResult.inRequestedOrder(quotationIds,
+                quotationId -> quotationSnapshot.findById(quotationId, QuotationField.ALL).orElse(null));
+    }
+
+    @Override
+    public QuotationResource saveQuotation(QuotationDto quotationDto) {
+        throw new QuotationStorageReadOnlyException(READ_ONLY);
+    }
+
+    @Override
+    public QuotationResource updateQuotation(QuotationDto quotationDto, String quotationId) {
+        throw new QuotationStorageReadOnlyException(READ_ONLY);
+    }
+
+    @Override
+    public void deleteQuotationById(String quotationId) {
+        throw new QuotationStorageReadOnlyException(READ_ONLY);
+    }
+}
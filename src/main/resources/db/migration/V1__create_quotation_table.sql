@@ -0,0 +1,7 @@
+-- Schema created by Hibernate before authors were normalized.
+CREATE TABLE IF NOT EXISTS quotation (
+    id         VARCHAR(255) NOT NULL PRIMARY KEY,
+    content    TEXT,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255)
+);
@@ -0,0 +1,44 @@
+-- Moves authors out of the quotation rows into their own table referenced by author_id.
+-- Safe to run on a schema that has already been normalized (e.g. created by Hibernate).
+
+CREATE TABLE IF NOT EXISTS author (
+    id         BIGSERIAL    NOT NULL PRIMARY KEY,
+    first_name VARCHAR(255) NOT NULL,
+    last_name  VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_author_first_name_last_name UNIQUE (first_name, last_name)
+);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1
+               FROM information_schema.columns
+               WHERE table_schema = current_schema()
+                 AND table_name = 'quotation'
+                 AND column_name = 'first_name') THEN
+
+        INSERT INTO author (first_name, last_name)
+        SELECT DISTINCT first_name, last_name
+        FROM quotation
+        ON CONFLICT (first_name, last_name) DO NOTHING;
+
+        ALTER TABLE quotation ADD COLUMN IF NOT EXISTS author_id BIGINT;
+
+        UPDATE quotation q
+        SET author_id = a.id
+        FROM author a
+        WHERE a.first_name = q.first_name
+          AND a.last_name = q.last_name;
+
+        ALTER TABLE quotation ALTER COLUMN author_id SET NOT NULL;
+        ALTER TABLE quotation DROP COLUMN first_name, DROP COLUMN last_name;
+    END IF;
+END $$;
+
+ALTER TABLE quotation DROP CONSTRAINT IF EXISTS fk_quotation_author;
+ALTER TABLE quotation
+    ADD CONSTRAINT fk_quotation_author FOREIGN KEY (author_id) REFERENCES author (id);
+
+CREATE INDEX IF NOT EXISTS idx_quotation_author_id ON quotation (author_id);
+
+-- Serves the case-insensitive duplicate check.
+CREATE INDEX IF NOT EXISTS idx_author_upper_last_name ON author (upper(last_name), first_name);
@@ -0,0 +1,10 @@
+-- Tracks when a quotation was last written and keeps an append-only log of writes for the change feed.
+
+ALTER TABLE quotation ADD COLUMN IF NOT EXISTS last_modified TIMESTAMP;
+
+CREATE TABLE IF NOT EXISTS quotation_change (
+    seq          BIGSERIAL    NOT NULL PRIMARY KEY,
+    quotation_id VARCHAR(255) NOT NULL,
+    change_type  VARCHAR(16)  NOT NULL,
+    changed_at   TIMESTAMP    NOT NULL
+);
@@ -0,0 +1,19 @@
+-- Adds the creation time of quotations and the indexes behind every sort key of the list endpoint.
+
+ALTER TABLE quotation ADD COLUMN IF NOT EXISTS created_at TIMESTAMP;
+
+-- The creation time of existing quotations is unknown, their last write is the closest approximation.
+UPDATE quotation
+SET created_at = COALESCE(last_modified, now())
+WHERE created_at IS NULL;
+
+-- sort=created
+CREATE INDEX IF NOT EXISTS idx_quotation_created_at_id ON quotation (created_at, id);
+
+-- sort=author.lastName walks this index, sort=author.firstName the unique constraint on (first_name, last_name).
+CREATE INDEX IF NOT EXISTS idx_author_last_name_first_name ON author (last_name, first_name);
+
+-- Quotations of each author come out of this index already ordered by id, the tie-breaker of the author sorts.
+-- It also serves the foreign key and the duplicate check, so it replaces the index on author_id alone.
+CREATE INDEX IF NOT EXISTS idx_quotation_author_id_id ON quotation (author_id, id);
+DROP INDEX IF EXISTS idx_quotation_author_id;
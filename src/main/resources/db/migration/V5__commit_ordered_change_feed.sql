@@ -0,0 +1,11 @@
+-- Hands out the sequence numbers of the change feed from a single locked row instead of a sequence, so they are
+-- committed in the order they are taken and a client cursor can never move past a change still being committed.
+
+CREATE TABLE IF NOT EXISTS quotation_change_sequence (
+    id       INTEGER NOT NULL PRIMARY KEY,
+    last_seq BIGINT  NOT NULL
+);
+
+INSERT INTO quotation_change_sequence (id, last_seq)
+SELECT 1, COALESCE(MAX(seq), 0) FROM quotation_change
+WHERE NOT EXISTS (SELECT 1 FROM quotation_change_sequence);
@@ -0,0 +1,4 @@
+-- Versions every quotation in the database instead of by the writer's clock: a new quotation starts at 0 and every
+-- update increments the version in the same statement, so two changes of one quotation never share a version.
+
+ALTER TABLE quotation ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
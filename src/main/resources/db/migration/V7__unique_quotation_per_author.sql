@@ -0,0 +1,6 @@
+-- Backs the duplicate check of saved quotations with a unique index. Under READ COMMITTED two concurrent saves of
+-- the same quotation both pass the NOT EXISTS check of the insert; with the index the second one waits for the first
+-- and fails instead of inserting a copy. Content is indexed by its md5, long quotations exceed the btree row limit.
+-- Creating the index fails if such copies already exist, remove them first.
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_quotation_author_id_content ON quotation (author_id, md5(content));
@@ -0,0 +1,15 @@
+-- Replaces the md5 expression index of V7 with a content_hash column and a plain unique constraint, which
+-- Hibernate maps and creates as well, so the uniqueness of content per author holds whichever way the schema
+-- was created. The application writes the hash along with the content.
+
+ALTER TABLE quotation ADD COLUMN IF NOT EXISTS content_hash VARCHAR(32);
+
+UPDATE quotation SET content_hash = md5(COALESCE(content, '')) WHERE content_hash IS NULL;
+
+ALTER TABLE quotation ALTER COLUMN content_hash SET NOT NULL;
+
+DROP INDEX IF EXISTS uq_quotation_author_id_content;
+
+ALTER TABLE quotation DROP CONSTRAINT IF EXISTS uk_quotation_author_id_content_hash;
+
+ALTER TABLE quotation ADD CONSTRAINT uk_quotation_author_id_content_hash UNIQUE (author_id, content_hash);
@@ -0,0 +1,73 @@
+-- Converts the quotation table into a table hash-partitioned by id.
+--
+-- Lookups by id (find, exists, update, delete) are pruned to a single partition, while vacuum,
+-- index rebuilds and sequential scans work on partitions that are 1/N of the table size.
+-- Change the number of partitions below before running the script (a power of two keeps
+-- future splits simple). Run it while the application is stopped and start the application
+-- with the "partitioned" profile afterwards, because Hibernate's ddl-auto cannot handle
+-- partitioned tables. Requires PostgreSQL 11 or newer and the schema migrated with db/migration.
+
+BEGIN;
+
+LOCK TABLE quotation IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE quotation RENAME TO quotation_unpartitioned;
+
+CREATE TABLE quotation (LIKE quotation_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY HASH (id);
+
+DO $$
+DECLARE
+    partitions CONSTANT INTEGER := 16;
+BEGIN
+    FOR i IN 0 .. partitions - 1 LOOP
+        EXECUTE format('CREATE TABLE quotation_p%s PARTITION OF quotation FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       lpad(i::TEXT, 2, '0'), partitions, i);
+    END LOOP;
+END $$;
+
+INSERT INTO quotation SELECT * FROM quotation_unpartitioned;
+
+DROP TABLE quotation_unpartitioned;
+
+ALTER TABLE quotation ADD PRIMARY KEY (id);
+
+ALTER TABLE quotation
+    ADD CONSTRAINT fk_quotation_author FOREIGN KEY (author_id) REFERENCES author (id);
+
+-- The duplicate check cannot be pruned (it does not filter by id), so every partition
+-- answers it with an index probe on the author instead of a scan.
+CREATE INDEX idx_quotation_author_id_id ON quotation (author_id, id);
+
+-- A unique constraint of a partitioned table has to contain the partition key, so uk_quotation_author_id_content_hash
+-- cannot be recreated on the table. The key of every quotation is kept in quotation_content_key by a trigger instead,
+-- its primary key rejects a second quotation with the same content of the same author like the constraint did.
+CREATE TABLE quotation_content_key (
+    author_id    BIGINT      NOT NULL,
+    content_hash VARCHAR(32) NOT NULL,
+    CONSTRAINT uk_quotation_author_id_content_hash PRIMARY KEY (author_id, content_hash)
+);
+
+INSERT INTO quotation_content_key SELECT author_id, content_hash FROM quotation;
+
+CREATE FUNCTION quotation_content_key_sync() RETURNS TRIGGER LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM quotation_content_key WHERE author_id = OLD.author_id AND content_hash = OLD.content_hash;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO quotation_content_key (author_id, content_hash) VALUES (NEW.author_id, NEW.content_hash);
+    END IF;
+    RETURN NULL;
+END $$;
+
+CREATE TRIGGER quotation_content_key_sync
+    AFTER INSERT OR UPDATE OF author_id, content_hash OR DELETE ON quotation
+    FOR EACH ROW EXECUTE PROCEDURE quotation_content_key_sync();
+
+-- Sorted listing merges the per-partition index scans instead of sorting the table.
+CREATE INDEX idx_quotation_created_at_id ON quotation (created_at, id);
+
+COMMIT;
+
+ANALYZE quotation;
@@ -0,0 +1,110 @@
+package pl.radoslawornat.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.radoslawornat.QuotationTaskApplication;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationSort;
+import pl.radoslawornat.repository.QuotationChangeRepository;
+import pl.radoslawornat.repository.memory.InMemoryQuotationStore;
+import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.impl.InMemoryQuotationService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * Compares save, get and list throughput of the embedded in-memory engine (with and without fsync) and the
+ * JPA path. The JPA part boots the application against the database configured in application.yaml and is
+ * skipped when it cannot start. It also measures the ceiling the change log puts on writes: transactions that
+ * only take a change sequence number and commit, which is the part of every write serialized on the sequence row.
+ * Not a unit test, run it by hand (see README).
+ */
+public class StorageThroughputBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int SAVES = 20_000;
+    private static final int READS = 200_000;
+    private static final int PAGE_SIZE = 25;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-16s %12s %12s %12s%n", "storage", "save [op/s]", "get [op/s]", "list [op/s]");
+        Path directory = Files.createTempDirectory("quotation-benchmark");
+        for (boolean fsync : new boolean[]{true, false}) {
+            try (InMemoryQuotationStore store = new InMemoryQuotationStore(directory.resolve(fsync + ".wal"),
+                    fsync, Duration.ofHours(1), Long.MAX_VALUE)) {
+                run(fsync ? "memory (fsync)" : "memory", new InMemoryQuotationService(store, event -> { }));
+            }
+        }
+        try (ConfigurableApplicationContext context = SpringApplication.run(QuotationTaskApplication.class,
+                "--server.port=0", "--quotations.admission.enabled=false", "--logging.level.root=WARN")) {
+            run("jpa", context.getBean(QuotationService.class));
+            runChangeSequence(context.getBean(QuotationChangeRepository.class),
+                    new TransactionTemplate(context.getBean(PlatformTransactionManager.class)));
+        } catch (RuntimeException exc) {
+            System.out.printf("%-16s skipped, cannot start the application: %s%n", "jpa", exc.getMessage());
+        }
+    }
+
+    private static void run(String storage, QuotationService quotationService) throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        double saves = measure(SAVES, i -> ids.add(quotationService.saveQuotation(
+                new QuotationDto(prefix + " quotation " + i, new Author("Bench", "Mark " + i % 100))).getId()));
+        List<String> savedIds = List.copyOf(ids);
+        double gets = measure(READS, i -> quotationService.getQuotationById(
+                savedIds.get(ThreadLocalRandom.current().nextInt(savedIds.size()))));
+        double lists = measure(READS / 10, i -> quotationService.listAllQuotations(
+                ThreadLocalRandom.current().nextInt(SAVES / PAGE_SIZE), PAGE_SIZE, QuotationField.ALL,
+                QuotationSort.DEFAULT));
+        System.out.printf("%-16s %12.0f %12.0f %12.0f%n", storage, saves, gets, lists);
+        for (String id : savedIds) {
+            quotationService.deleteQuotationById(id);
+        }
+    }
+
+    /**
+     * Takes sequence numbers without appending changes, leaving gaps in the sequence the change feed skips.
+     */
+    private static void runChangeSequence(QuotationChangeRepository quotationChangeRepository,
+                                          TransactionTemplate transactionTemplate) throws Exception {
+        double takes = measure(SAVES, i -> transactionTemplate.executeWithoutResult(
+                status -> quotationChangeRepository.incrementSequence()));
+        System.out.printf("%-16s %12.0f %12s %12s%n", "change sequence", takes, "-", "-");
+    }
+
+    private static double measure(int operations, IntConsumer operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            Future<?>[] workers = new Future<?>[THREADS];
+            for (int thread = 0; thread < THREADS; thread++) {
+                int firstOperation = thread;
+                workers[thread] = executor.submit(() -> {
+                    for (int i = firstOperation; i < operations; i += THREADS) {
+                        operation.accept(i);
+                    }
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return operations / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
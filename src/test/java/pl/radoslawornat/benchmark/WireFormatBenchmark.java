@@ -0,0 +1,68 @@
+package pl.radoslawornat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compares payload size and encode/decode time of a full page of quotations in JSON, CBOR and Smile.
+ * Not a unit test, run it by hand (see README).
+ */
+public class WireFormatBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int WARM_UP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        Page<QuotationResource> page = createPage();
+        System.out.printf("%-8s %12s %14s %14s%n", "format", "bytes", "encode [us]", "decode [us]");
+        run("json", new ObjectMapper(), page);
+        run("cbor", new ObjectMapper(new CBORFactory()), page);
+        run("smile", new ObjectMapper(new SmileFactory()), page);
+    }
+
+    private static void run(String format, ObjectMapper mapper, Page<QuotationResource> page) throws Exception {
+        byte[] payload = mapper.writeValueAsBytes(page);
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            mapper.readTree(mapper.writeValueAsBytes(page));
+        }
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            payload = mapper.writeValueAsBytes(page);
+            long encoded = System.nanoTime();
+            mapper.readTree(payload);
+            decodeNanos += System.nanoTime() - encoded;
+            encodeNanos += encoded - start;
+        }
+        System.out.printf("%-8s %12d %14.1f %14.1f%n", format, payload.length,
+                encodeNanos / 1_000.0 / MEASURED_ITERATIONS, decodeNanos / 1_000.0 / MEASURED_ITERATIONS);
+    }
+
+    private static Page<QuotationResource> createPage() {
+        String[][] authors = {
+                {"Winston", "Churchill"}, {"Albert", "Einstein"}, {"Maria", "Skłodowska-Curie"},
+                {"Fryderyk", "Chopin"}, {"Mark", "Twain"}, {"Oscar", "Wilde"}
+        };
+        List<QuotationResource> quotations = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            String[] author = authors[i % authors.length];
+            String content = "Quotation number " + i + " - success is not final, failure is not fatal: "
+                    + "it is the courage to continue that counts.";
+            quotations.add(new QuotationResource(UUID.randomUUID().toString(), content,
+                    new Author(author[0], author[1])));
+        }
+        return new PageImpl<>(quotations, PageRequest.of(0, PAGE_SIZE), 250_000);
+    }
+}
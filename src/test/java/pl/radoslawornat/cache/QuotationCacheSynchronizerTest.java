@@ -0,0 +1,52 @@
+package pl.radoslawornat.cache;
+
+import org.junit.jupiter.api.Test;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class QuotationCacheSynchronizerTest {
+
+    QuotationInvalidationBus invalidationBus = mock(QuotationInvalidationBus.class);
+
+    QuotationCache quotationCache = new QuotationCache(invalidationBus, 100, Duration.ofMinutes(1));
+
+    QuotationCacheSynchronizer synchronizer = new QuotationCacheSynchronizer(invalidationBus, quotationCache);
+
+    @Test
+    void shouldPublishInvalidationWithVersionOfChange() {
+        QuotationResource quotation = new QuotationResource("1", "Alea iacta est.", "Julius", "Caesar");
+
+        synchronizer.publishInvalidation(QuotationChangedEvent.updated(quotation, 4));
+        synchronizer.publishInvalidation(QuotationChangedEvent.deleted("2"));
+
+        verify(invalidationBus).publish("1", 4);
+        verify(invalidationBus).publish("2", QuotationChangedEvent.DELETED_VERSION);
+    }
+
+    @Test
+    void shouldCacheCommittedStateOverInvalidationOfSameChange() {
+        QuotationResource quotation = new QuotationResource("1", "Alea iacta est.", "Julius", "Caesar");
+        QuotationChangedEvent event = QuotationChangedEvent.updated(quotation, 4);
+
+        quotationCache.onInvalidate("1", 4);
+        synchronizer.refreshLocalEntry(event);
+
+        assertSame(quotation, quotationCache.get("1").orElseThrow());
+    }
+
+    @Test
+    void shouldKeepDeletedQuotationOutOfCache() {
+        QuotationResource quotation = new QuotationResource("1", "Alea iacta est.", "Julius", "Caesar");
+        quotationCache.put(quotation, 4);
+
+        synchronizer.refreshLocalEntry(QuotationChangedEvent.deleted("1"));
+        quotationCache.put(quotation, 4);
+
+        assertTrue(quotationCache.get("1").isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package pl.radoslawornat.cache;
+
+import org.junit.jupiter.api.Test;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotationCacheTest {
+
+    private static final Duration TOMBSTONE_TTL = Duration.ofSeconds(30);
+
+    AtomicLong nanoTime = new AtomicLong();
+
+    QuotationCache quotationCache =
+            new QuotationCache(new LocalQuotationInvalidationBus(), 3, TOMBSTONE_TTL, nanoTime::get);
+
+    @Test
+    void shouldKeepNewestVersionOfQuotation() {
+        quotationCache.put(quotation("1", "Alea iacta est!"), 2);
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+
+        assertEquals("Alea iacta est!", content("1"));
+
+        quotationCache.put(quotation("1", "Veni, vidi, vici."), 3);
+
+        assertEquals("Veni, vidi, vici.", content("1"));
+    }
+
+    @Test
+    void shouldNotCacheOlderRowAfterInvalidation() {
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+
+        quotationCache.onInvalidate("1", 2);
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+
+        assertTrue(quotationCache.get("1").isEmpty());
+
+        quotationCache.put(quotation("1", "Alea iacta est!"), 2);
+
+        assertEquals("Alea iacta est!", content("1"));
+    }
+
+    @Test
+    void shouldAcceptOlderRowOnceTombstoneExpired() {
+        quotationCache.evict("1", 5);
+        nanoTime.addAndGet(TOMBSTONE_TTL.toNanos() - 1);
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+
+        assertTrue(quotationCache.get("1").isEmpty());
+
+        nanoTime.addAndGet(1);
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+
+        assertEquals("Alea iacta est.", content("1"));
+    }
+
+    @Test
+    void shouldRemoveExpiredTombstonesAsNewQuotationsArrive() {
+        quotationCache.evict("1", 1);
+        quotationCache.evict("2", 1);
+        nanoTime.addAndGet(TOMBSTONE_TTL.toNanos());
+
+        quotationCache.put(quotation("3", "Alea iacta est."), 1);
+        quotationCache.put(quotation("4", "Veni, vidi, vici."), 1);
+
+        assertEquals(2, quotationCache.size());
+        assertTrue(quotationCache.get("3").isPresent());
+        assertTrue(quotationCache.get("4").isPresent());
+    }
+
+    @Test
+    void shouldEvictQuotationNotReadRecentlyWhenFull() {
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+        quotationCache.put(quotation("2", "Veni, vidi, vici."), 1);
+        quotationCache.put(quotation("3", "Divide et impera."), 1);
+        quotationCache.get("1");
+        quotationCache.get("3");
+
+        quotationCache.put(quotation("4", "Carpe diem."), 1);
+
+        assertEquals(3, quotationCache.size());
+        assertTrue(quotationCache.get("2").isEmpty());
+        assertTrue(quotationCache.get("4").isPresent());
+    }
+
+    @Test
+    void shouldCacheNewQuotationsWhenFull() {
+        for (int i = 0; i < 10; i++) {
+            quotationCache.put(quotation(String.valueOf(i), "Carpe diem."), 1);
+            quotationCache.get(String.valueOf(i));
+        }
+
+        assertEquals(3, quotationCache.size());
+        assertTrue(quotationCache.get("9").isPresent());
+    }
+
+    @Test
+    void shouldDropEverythingOnResync() {
+        quotationCache.put(quotation("1", "Alea iacta est."), 1);
+        quotationCache.evict("2", 7);
+
+        quotationCache.onResync();
+
+        assertTrue(quotationCache.get("1").isEmpty());
+
+        quotationCache.put(quotation("2", "Veni, vidi, vici."), 1);
+
+        assertEquals("Veni, vidi, vici.", content("2"));
+    }
+
+    private String content(String quotationId) {
+        Optional<QuotationResource> quotation = quotationCache.get(quotationId);
+        assertTrue(quotation.isPresent());
+        return quotation.get().getContent();
+    }
+
+    private static QuotationResource quotation(String id, String content) {
+        return new QuotationResource(id, content, "Julius", "Caesar");
+    }
+}
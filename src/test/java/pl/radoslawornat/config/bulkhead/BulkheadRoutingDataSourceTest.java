@@ -0,0 +1,95 @@
+package pl.radoslawornat.config.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pl.radoslawornat.service.bulkhead.Bulkhead;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadRoutingDataSourceTest {
+
+    Bulkhead readBulkhead = new Bulkhead("read", 2, 10, Duration.ofSeconds(1));
+    Bulkhead writeBulkhead = new Bulkhead("write", 1, 10, Duration.ofSeconds(1));
+    BulkheadRoutingDataSource routingDataSource =
+            new BulkheadRoutingDataSource(sharedPool(), Map.of("read", 2, "write", 1));
+
+    @AfterEach
+    void tearDown() {
+        readBulkhead.close();
+        writeBulkhead.close();
+        routingDataSource.close();
+    }
+
+    @Test
+    void shouldTakeConnectionsOfBulkheadOperationsFromPoolOfBulkhead() {
+        routingDataSource.afterPropertiesSet();
+
+        HikariDataSource readPool = readBulkhead.call(this::currentPool);
+        HikariDataSource writePool = writeBulkhead.call(this::currentPool);
+
+        assertEquals("quotations-read", readPool.getPoolName());
+        assertEquals(2, readPool.getMaximumPoolSize());
+        assertEquals("quotations-write", writePool.getPoolName());
+        assertEquals(1, writePool.getMaximumPoolSize());
+        assertEquals("quotations", currentPool().getPoolName());
+    }
+
+    @Test
+    void shouldHandOutWriteConnectionWhileReadsHoldAllOfTheirs() throws Exception {
+        routingDataSource.afterPropertiesSet();
+        CountDownLatch readsConnected = new CountDownLatch(2);
+        CountDownLatch releaseReads = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                callers.submit(() -> readBulkhead.run(() -> {
+                    try (Connection ignored = routingDataSource.getConnection()) {
+                        readsConnected.countDown();
+                        releaseReads.await(10, TimeUnit.SECONDS);
+                    } catch (SQLException | InterruptedException exc) {
+                        throw new IllegalStateException(exc);
+                    }
+                }));
+            }
+            assertTrue(readsConnected.await(10, TimeUnit.SECONDS));
+
+            assertTrue(writeBulkhead.call(() -> {
+                try (Connection connection = routingDataSource.getConnection()) {
+                    return connection.isValid(1);
+                } catch (SQLException exc) {
+                    throw new IllegalStateException(exc);
+                }
+            }));
+        } finally {
+            releaseReads.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    private HikariDataSource currentPool() {
+        try {
+            return routingDataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private static HikariDataSource sharedPool() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("quotations");
+        dataSource.setJdbcUrl("jdbc:h2:mem:bulkhead-pools;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setConnectionTimeout(250);
+        return dataSource;
+    }
+}
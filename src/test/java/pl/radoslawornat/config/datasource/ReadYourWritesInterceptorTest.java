@@ -0,0 +1,42 @@
+package pl.radoslawornat.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesInterceptorTest {
+
+    ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(Duration.ofSeconds(5));
+
+    @AfterEach
+    void cleanup() {
+        PrimaryDataSourceContext.clear();
+    }
+
+    @Test
+    void shouldNotKeepPrimaryFlagOfPreviousRequestOnTheSameThread() {
+        PrimaryDataSourceContext.requirePrimary();
+
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/api/quotations"), new MockHttpServletResponse(), null);
+
+        assertFalse(PrimaryDataSourceContext.isPrimaryRequired());
+    }
+
+    @Test
+    void shouldClearPrimaryFlagWhenRequestContinuesAsynchronously() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/quotations");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        assertTrue(PrimaryDataSourceContext.isPrimaryRequired());
+
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        assertFalse(PrimaryDataSourceContext.isPrimaryRequired());
+    }
+}
@@ -0,0 +1,48 @@
+package pl.radoslawornat.config.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ReplicationRoutingDataSourceTest {
+
+    ReplicationRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setup() {
+        routingDataSource = new ReplicationRoutingDataSource(mock(DataSource.class), mock(DataSource.class));
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void cleanup() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        PrimaryDataSourceContext.clear();
+    }
+
+    @Test
+    void shouldRouteToPrimaryOutsideOfReadOnlyTransaction() {
+        assertEquals(DataSourceRole.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(DataSourceRole.REPLICA, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void shouldRouteReadOnlyTransactionToPrimaryWhenClientHasJustWritten() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        PrimaryDataSourceContext.requirePrimary();
+
+        assertEquals(DataSourceRole.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+}
@@ -0,0 +1,120 @@
+package pl.radoslawornat.config.shard;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.generator.CustomIdGenerator;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.shard.QuotationShard;
+import pl.radoslawornat.repository.shard.QuotationShards;
+import pl.radoslawornat.repository.shard.ShardRouter;
+import pl.radoslawornat.repository.shard.ShardedQuotation;
+import pl.radoslawornat.service.impl.ShardedQuotationService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class QuotationShardRebalancerTest {
+
+    private static final int BATCH_SIZE = 7;
+
+    private QuotationShards quotationShards;
+
+    @AfterEach
+    void closeShards() throws IOException {
+        if (quotationShards != null) {
+            quotationShards.close();
+        }
+    }
+
+    @Test
+    void shouldMoveQuotationsAndClaimsToAddedShardAndDropOrphanedClaims() throws IOException {
+        String name = "rebalance-" + CustomIdGenerator.nextId();
+        quotationShards = openShards(name, 3);
+        ShardedQuotationService quotationService =
+                new ShardedQuotationService(quotationShards, mock(ApplicationEventPublisher.class));
+        List<QuotationResource> saved = IntStream.range(0, 40)
+                .mapToObj(i -> quotationService.saveQuotation(
+                        new QuotationDto("Quotation " + i, new Author("Julius", "Caesar"))))
+                .collect(Collectors.toList());
+        String orphanedKey = ShardRouter.claimKey("Orphaned", "Julius", "Caesar");
+        quotationShards.shardOfClaim(orphanedKey).claim(orphanedKey, "missing");
+        String staleKey = ShardRouter.claimKey("Stale", "Julius", "Caesar");
+        quotationShards.shardOfClaim(staleKey).claim(staleKey, saved.get(0).getId());
+        quotationShards.close();
+
+        quotationShards = openShards(name, 4);
+        rebalance();
+
+        Map<String, String> quotationIdsByClaimKey = new HashMap<>();
+        for (QuotationShard shard : quotationShards.getShards()) {
+            shard.findQuotationsAfter("", 100).forEach(quotation ->
+                    assertSame(shard, quotationShards.shardOfQuotation(quotation.getId())));
+            shard.findClaimsAfter("", 100).forEach(claim -> {
+                assertSame(shard, quotationShards.shardOfClaim(claim.getClaimKey()));
+                quotationIdsByClaimKey.put(claim.getClaimKey(), claim.getQuotationId());
+            });
+        }
+        assertEquals(saved.size(), quotationShards.count());
+        assertTrue(quotationShards.getShards().get(3).count() > 0);
+        Map<String, String> expectedClaims = saved.stream().collect(Collectors.toMap(
+                quotation -> ShardRouter.claimKey(quotation.getContent(), "Julius", "Caesar"),
+                QuotationResource::getId));
+        assertEquals(expectedClaims, quotationIdsByClaimKey);
+    }
+
+    @Test
+    void shouldFinishInterruptedRunAndMoveNothingWhenRunAgain() {
+        quotationShards = openShards("rebalance-" + CustomIdGenerator.nextId(), 4);
+        ShardedQuotationService quotationService =
+                new ShardedQuotationService(quotationShards, mock(ApplicationEventPublisher.class));
+        QuotationResource saved =
+                quotationService.saveQuotation(new QuotationDto("Veni, vidi, vici.", new Author("Julius", "Caesar")));
+        QuotationShard target = quotationShards.shardOfQuotation(saved.getId());
+        QuotationShard previous = quotationShards.getShards().get((target.getIndex() + 1) % 4);
+        previous.insert(target.findById(saved.getId()).orElseThrow());
+
+        rebalance();
+        Map<Integer, List<String>> afterFirstRun = quotationIdsByShard();
+        rebalance();
+
+        assertEquals(List.of(saved.getId()), afterFirstRun.get(target.getIndex()));
+        assertEquals(1, quotationShards.count());
+        assertEquals(afterFirstRun, quotationIdsByShard());
+    }
+
+    private void rebalance() {
+        new QuotationShardRebalancer(quotationShards, null, BATCH_SIZE, false).run(null);
+    }
+
+    private Map<Integer, List<String>> quotationIdsByShard() {
+        return quotationShards.getShards().stream().collect(Collectors.toMap(QuotationShard::getIndex,
+                shard -> shard.findQuotationsAfter("", 100).stream()
+                        .map(ShardedQuotation::getId)
+                        .collect(Collectors.toList())));
+    }
+
+    private static QuotationShards openShards(String name, int shards) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + name + "-shard-" + i + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            dataSources.add(dataSource);
+        }
+        QuotationShards quotationShards = new QuotationShards(dataSources, shards);
+        quotationShards.createSchema();
+        return quotationShards;
+    }
+}
@@ -0,0 +1,45 @@
+package pl.radoslawornat.config.warmup;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FirstMinuteLatencyFilterTest {
+
+    Timer firstMinuteTimer = new SimpleMeterRegistry().timer("quotations.requests.first-minute");
+
+    @Test
+    void shouldRecordApiRequestsOnlyWithinWindowAfterReady() throws ServletException, IOException {
+        FirstMinuteLatencyFilter filter = new FirstMinuteLatencyFilter(firstMinuteTimer, Duration.ofMinutes(1));
+
+        serve(filter, "/api/quotations");
+        filter.markReady();
+        serve(filter, "/api/quotations");
+        serve(filter, "/actuator/health");
+
+        assertEquals(1, firstMinuteTimer.count());
+    }
+
+    @Test
+    void shouldNotRecordRequestsAfterWindow() throws ServletException, IOException {
+        FirstMinuteLatencyFilter filter = new FirstMinuteLatencyFilter(firstMinuteTimer, Duration.ZERO);
+        filter.markReady();
+
+        serve(filter, "/api/quotations");
+
+        assertEquals(0, firstMinuteTimer.count());
+    }
+
+    private static void serve(FirstMinuteLatencyFilter filter, String uri) throws ServletException, IOException {
+        filter.doFilter(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
@@ -0,0 +1,84 @@
+package pl.radoslawornat.config.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import pl.radoslawornat.cache.QuotationCache;
+import pl.radoslawornat.controller.QuotationController;
+import pl.radoslawornat.repository.AuthorRepository;
+import pl.radoslawornat.repository.QuotationChangeRepository;
+import pl.radoslawornat.repository.QuotationRepository;
+import pl.radoslawornat.service.QuotationService;
+import pl.radoslawornat.service.author.AuthorDictionary;
+
+import javax.validation.Validator;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the warm-up against the embedded database of the query budget tests and checks that its writes,
+ * always rolled back, leave nothing behind.
+ */
+@SpringBootTest
+@ActiveProfiles("query-budget")
+class QuotationWarmUpRollbackTest {
+
+    private static final int ITERATIONS = 3;
+
+    @Autowired
+    QuotationController quotationController;
+
+    @Autowired
+    QuotationService quotationService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    QuotationRepository quotationRepository;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    QuotationChangeRepository quotationChangeRepository;
+
+    @Autowired
+    QuotationCache quotationCache;
+
+    @Autowired
+    AuthorDictionary authorDictionary;
+
+    @Test
+    void shouldLeaveDatabaseCacheAuthorDictionaryAndChangeLogUntouched() {
+        long quotations = quotationRepository.count();
+        long authors = authorRepository.count();
+        long changes = quotationChangeRepository.count();
+        int cachedQuotations = quotationCache.size();
+        int dictionaryAuthors = authorDictionary.size();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        QuotationWarmUpRunner warmUpRunner = new QuotationWarmUpRunner(quotationController, quotationService,
+                objectMapper, validator, transactionManager, meterRegistry, ITERATIONS, 5, Duration.ofMinutes(1));
+
+        warmUpRunner.run(null);
+
+        assertEquals(ITERATIONS, meterRegistry.counter("quotations.warmup.iterations").count());
+        assertEquals(quotations, quotationRepository.count());
+        assertEquals(authors, authorRepository.count());
+        assertTrue(authorRepository.findByFirstNameAndLastName("Warm", "Up").isEmpty());
+        assertEquals(changes, quotationChangeRepository.count());
+        assertEquals(cachedQuotations, quotationCache.size());
+        assertEquals(dictionaryAuthors, authorDictionary.size());
+    }
+}
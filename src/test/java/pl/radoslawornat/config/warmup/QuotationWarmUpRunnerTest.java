@@ -0,0 +1,46 @@
+package pl.radoslawornat.config.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import pl.radoslawornat.controller.QuotationController;
+import pl.radoslawornat.service.QuotationService;
+
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class QuotationWarmUpRunnerTest {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    QuotationController quotationController = mock(QuotationController.class);
+
+    QuotationService quotationService = mock(QuotationService.class);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldStopWarmUpOnceMaxDurationIsReached() {
+        doAnswer(invocation -> {
+            Thread.sleep(10);
+            return ResponseEntity.ok(List.of());
+        }).when(quotationController).findAllQuotations(anyInt(), anyInt(), any(), any());
+        QuotationWarmUpRunner warmUpRunner = new QuotationWarmUpRunner(quotationController, quotationService,
+                new ObjectMapper(), mock(Validator.class), null, meterRegistry, ITERATIONS, 25, Duration.ofMillis(100));
+
+        warmUpRunner.run(null);
+
+        double completedIterations = meterRegistry.counter("quotations.warmup.iterations").count();
+        assertTrue(completedIterations >= 1 && completedIterations < ITERATIONS);
+        assertTrue(meterRegistry.timer("quotations.warmup.duration").totalTime(TimeUnit.SECONDS) < 5);
+        verifyNoInteractions(quotationService);
+    }
+}
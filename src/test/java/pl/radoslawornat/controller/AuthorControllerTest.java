@@ -0,0 +1,69 @@
+package pl.radoslawornat.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.radoslawornat.model.response.AuthorSuggestion;
+import pl.radoslawornat.service.author.AuthorSuggester;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(value = AuthorController.class)
+class AuthorControllerTest {
+
+    @MockBean
+    AuthorSuggester authorSuggester;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void shouldSuggestAuthorsMethodReturnSuggestionsForPrefix() throws Exception {
+        List<AuthorSuggestion> suggestions = List.of(
+                new AuthorSuggestion("Adam", "Mickiewicz", 42),
+                new AuthorSuggestion("Adam", "Asnyk", 7));
+
+        when(authorSuggester.suggest("adam", 10)).thenReturn(suggestions);
+
+        String url = "/api/authors/suggest";
+
+        mockMvc.perform(get(url)
+                .param("prefix", "adam")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(suggestions)));
+
+        verify(authorSuggester).suggest("adam", 10);
+    }
+
+    @Test
+    void shouldSuggestAuthorsMethodReturnBadRequestWhenLimitLargerThan50() throws Exception {
+        String url = "/api/authors/suggest";
+
+        mockMvc.perform(get(url)
+                .param("prefix", "adam")
+                .param("limit", "51")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(authorSuggester, never()).suggest(anyString(), anyInt());
+    }
+}
@@ -0,0 +1,94 @@
+package pl.radoslawornat.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.radoslawornat.model.event.QuotationChangeType;
+import pl.radoslawornat.model.response.QuotationChangePage;
+import pl.radoslawornat.model.response.QuotationChangeResource;
+import pl.radoslawornat.service.feed.QuotationChangeFeed;
+import pl.radoslawornat.service.feed.QuotationChangeStream;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(value = QuotationChangeController.class)
+class QuotationChangeControllerTest {
+
+    @MockBean
+    QuotationChangeFeed quotationChangeFeed;
+
+    @MockBean
+    QuotationChangeStream quotationChangeStream;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Test
+    void shouldFindChangesMethodReturnChangesSinceCursor() throws Exception {
+        QuotationChangePage changes = new QuotationChangePage(List.of(
+                new QuotationChangeResource(11, QuotationChangeType.UPDATED, Instant.parse("2021-09-01T10:00:00Z"),
+                        "c1b4f2a8-5e1d-4c0b-9f1e-2d3b4a5c6d7e", "Veni, vidi, vici.", "Julius", "Caesar"),
+                new QuotationChangeResource(12, QuotationChangeType.DELETED, Instant.parse("2021-09-01T10:00:01Z"),
+                        "0a9b8c7d-6e5f-4a3b-2c1d-0e9f8a7b6c5d", null, null, null)),
+                12, false);
+
+        when(quotationChangeFeed.changesSince(10, 100)).thenReturn(changes);
+
+        String url = "/api/quotations/changes";
+
+        mockMvc.perform(get(url)
+                .param("since", "10")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(changes)));
+
+        verify(quotationChangeFeed).changesSince(10, 100);
+    }
+
+    @Test
+    void shouldFindChangesMethodReturnBadRequestWhenLimitLargerThan1000() throws Exception {
+        String url = "/api/quotations/changes";
+
+        mockMvc.perform(get(url)
+                .param("limit", "1001")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(quotationChangeFeed, never()).changesSince(anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldStreamChangesMethodResumeFromLastEventId() throws Exception {
+        when(quotationChangeStream.subscribe(anyLong())).thenReturn(new SseEmitter());
+
+        String url = "/api/quotations/changes/stream";
+
+        mockMvc.perform(get(url)
+                .param("since", "5")
+                .header(QuotationChangeController.LAST_EVENT_ID, "42")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk());
+
+        verify(quotationChangeStream).subscribe(42);
+    }
+}
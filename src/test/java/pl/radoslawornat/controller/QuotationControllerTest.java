@@ -1,6 +1,8 @@
 package pl.radoslawornat.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -10,17 +12,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import pl.radoslawornat.model.Author;
 import pl.radoslawornat.model.dto.QuotationDto;
 import pl.radoslawornat.model.response.CustomHttpResponse;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
 import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
 import pl.radoslawornat.service.QuotationService;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -45,7 +55,7 @@ class QuotationControllerTest {
     void shouldFindAllQuotationsMethodReturnQuotationsPageWhenParamsOfPageAndSizeNotPassed() throws Exception {
         Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
 
-        when(quotationService.listAllQuotations(0, 25)).thenReturn(quotations);
+        when(quotationService.listAllQuotations(0, 25, QuotationField.ALL, QuotationSort.DEFAULT)).thenReturn(quotations);
 
         String url = "/api/quotations";
 
@@ -55,14 +65,14 @@ class QuotationControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().json(mapper.writeValueAsString(quotations)));
 
-        verify(quotationService).listAllQuotations(0,25);
+        verify(quotationService).listAllQuotations(0, 25, QuotationField.ALL, QuotationSort.DEFAULT);
     }
 
     @Test
     void shouldFindAllQuotationsMethodReturnQuotationsPageWhenParamsPassed() throws Exception {
         Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
 
-        when(quotationService.listAllQuotations(0, 5)).thenReturn(quotations);
+        when(quotationService.listAllQuotations(0, 5, QuotationField.ALL, QuotationSort.DEFAULT)).thenReturn(quotations);
 
         String url = "/api/quotations";
 
@@ -74,7 +84,7 @@ class QuotationControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().json(mapper.writeValueAsString(quotations)));
 
-        verify(quotationService).listAllQuotations(0,5);
+        verify(quotationService).listAllQuotations(0, 5, QuotationField.ALL, QuotationSort.DEFAULT);
     }
 
     @Test
@@ -95,7 +105,167 @@ class QuotationControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(content().json(mapper.writeValueAsString(httpResponse)));
 
-        verify(quotationService, never()).listAllQuotations(0,1001);
+        verify(quotationService, never()).listAllQuotations(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldFindAllQuotationsMethodPassSelectedFieldsToService() throws Exception {
+        Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
+        Set<QuotationField> selectedFields = EnumSet.of(QuotationField.ID, QuotationField.AUTHOR);
+
+        when(quotationService.listAllQuotations(0, 25, selectedFields, QuotationSort.DEFAULT)).thenReturn(quotations);
+
+        String url = "/api/quotations";
+
+        mockMvc.perform(get(url)
+                .param("fields", "author")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        verify(quotationService).listAllQuotations(0, 25, selectedFields, QuotationSort.DEFAULT);
+    }
+
+    @Test
+    void shouldFindAllQuotationsMethodReturnBadRequestWhenUnknownFieldIsSelected() throws Exception {
+        String url = "/api/quotations";
+
+        mockMvc.perform(get(url)
+                .param("fields", "id,year")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(quotationService, never()).listAllQuotations(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldFindAllQuotationsMethodPassSelectedSortToService() throws Exception {
+        Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
+        QuotationSort selectedSort = new QuotationSort(QuotationSort.Key.AUTHOR_LAST_NAME, Sort.Direction.DESC);
+
+        when(quotationService.listAllQuotations(0, 25, QuotationField.ALL, selectedSort)).thenReturn(quotations);
+
+        String url = "/api/quotations";
+
+        mockMvc.perform(get(url)
+                .param("sort", "author.lastName,desc")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+
+        verify(quotationService).listAllQuotations(0, 25, QuotationField.ALL, selectedSort);
+    }
+
+    @Test
+    void shouldFindAllQuotationsMethodReturnBadRequestWhenSortKeyIsNotWhitelisted() throws Exception {
+        String errorMessage = String.format(QuotationController.UNKNOWN_SORT, "content");
+
+        CustomHttpResponse httpResponse
+                = new CustomHttpResponse(
+                        400, BAD_REQUEST, BAD_REQUEST.getReasonPhrase().toUpperCase(), errorMessage);
+
+        String url = "/api/quotations";
+
+        mockMvc.perform(get(url)
+                .param("sort", "content")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json(mapper.writeValueAsString(httpResponse)));
+
+        verify(quotationService, never()).listAllQuotations(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldFindAllQuotationsMethodReturnCborWhenRequested() throws Exception {
+        Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+        when(quotationService.listAllQuotations(0, 25, QuotationField.ALL, QuotationSort.DEFAULT)).thenReturn(quotations);
+
+        String url = "/api/quotations";
+
+        byte[] body = mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(mapper.readTree(mapper.writeValueAsString(quotations)), cborMapper.readTree(body));
+    }
+
+    @Test
+    void shouldFindAllQuotationsMethodReturnErrorBodyInSmileWhenRequested() throws Exception {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+        String url = "/api/quotations";
+
+        byte[] body = mockMvc.perform(get(url)
+                .param("fields", "id,year")
+                .accept(WireFormats.APPLICATION_SMILE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(WireFormats.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(String.format(QuotationController.UNKNOWN_FIELDS, "id,year"),
+                smileMapper.readTree(body).get("message").asText());
+    }
+
+    @Test
+    void shouldFindQuotationMethodReturnQuotationWithSelectedFields() throws Exception {
+        QuotationResource quotation = generateQuotationResourceWithArgs("Veni, vidi, vici.", new Author("Julius", "Caesar"));
+
+        when(quotationService.getQuotationById(quotation.getId())).thenReturn(quotation);
+
+        String url = "/api/quotations/" + quotation.getId();
+
+        mockMvc.perform(get(url)
+                .param("fields", "content")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(
+                        quotation.narrowTo(EnumSet.of(QuotationField.ID, QuotationField.CONTENT))), true));
+
+        verify(quotationService).getQuotationById(quotation.getId());
+    }
+
+    @Test
+    void shouldFindQuotationsByIdsMethodReturnFoundAndMissingQuotations() throws Exception {
+        QuotationResource first = generateQuotationResourceWithArgs("Veni, vidi, vici.", new Author("Julius", "Caesar"));
+        QuotationResource second = generateQuotationResourceWithArgs("Alea iacta est.", new Author("Julius", "Caesar"));
+        List<String> ids = List.of(second.getId(), "missing", first.getId());
+        QuotationLookupResult result = new QuotationLookupResult(List.of(second, first), List.of("missing"));
+
+        when(quotationService.getQuotationsByIds(ids)).thenReturn(result);
+
+        String url = "/api/quotations";
+
+        mockMvc.perform(get(url)
+                .param("ids", String.join(",", ids))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(mapper.writeValueAsString(result), true));
+
+        verify(quotationService).getQuotationsByIds(ids);
+        verify(quotationService, never()).listAllQuotations(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldFindQuotationsByIdsMethodReturnBadRequestWhenTooManyIdsPassed() throws Exception {
+        String[] ids = new String[201];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = String.valueOf(i);
+        }
+
+        String url = "/api/quotations";
+
+        mockMvc.perform(get(url)
+                .param("ids", ids)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(quotationService, never()).getQuotationsByIds(any());
     }
 
     @Test
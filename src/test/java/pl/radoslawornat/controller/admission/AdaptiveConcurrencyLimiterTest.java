@@ -0,0 +1,57 @@
+package pl.radoslawornat.controller.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration LATENCY_THRESHOLD = Duration.ofMillis(100);
+
+    @Test
+    void shouldRejectRequestsAboveCurrentLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 2, 1, 10, LATENCY_THRESHOLD, 0.5);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldRaiseLimitWhenFullyUsedLimitKeepsLatencyLow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 2, 1, 10, LATENCY_THRESHOLD, 0.5);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        limiter.release(Duration.ofMillis(10).toNanos());
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldLowerLimitWhenLatencyExceedsThreshold() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 8, 2, 10, LATENCY_THRESHOLD, 0.5);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        limiter.release(Duration.ofMillis(500).toNanos());
+        limiter.release(Duration.ofMillis(500).toNanos());
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shouldNotLowerLimitBelowMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 2, 2, 10, LATENCY_THRESHOLD, 0.5);
+        limiter.tryAcquire();
+
+        limiter.release(Duration.ofMillis(500).toNanos());
+
+        assertEquals(2, limiter.getLimit());
+    }
+}
@@ -0,0 +1,139 @@
+package pl.radoslawornat.repository.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Sort;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryQuotationStoreTest {
+
+    private static final QuotationSort IN_CREATION_ORDER = new QuotationSort(QuotationSort.Key.CREATED, Sort.Direction.ASC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverQuotationsFromWriteAheadLog() throws IOException {
+        try (InMemoryQuotationStore store = openStore()) {
+            assertTrue(store.insert(quotation("1", "Veni, vidi, vici.")));
+            assertTrue(store.insert(quotation("2", "Alea iacta est.")));
+            assertTrue(store.insert(quotation("3", "Divide et impera.")));
+            assertEquals(Optional.of(1L), store.update(quotation("1", "Veni, vidi, vici!")));
+            assertTrue(store.delete("2"));
+            assertEquals(Optional.empty(), store.update(quotation("2", "Alea iacta est!")));
+        }
+
+        try (InMemoryQuotationStore store = openStore()) {
+            assertEquals(2, store.count());
+            assertEquals("Veni, vidi, vici!", store.findById("1").orElseThrow().getContent());
+            assertFalse(store.existsById("2"));
+            assertEquals(List.of("1", "3"), ids(store.findAll(IN_CREATION_ORDER, 0, 10)));
+            assertEquals(Optional.of(2L), store.update(quotation("1", "Veni, vidi, vici.")));
+            store.compact();
+        }
+
+        try (InMemoryQuotationStore store = openStore()) {
+            assertEquals(Optional.of(3L), store.update(quotation("1", "Veni, vidi, vici!")));
+            assertEquals(Optional.of(1L), store.update(quotation("3", "Divide et impera!")));
+        }
+    }
+
+    @Test
+    void shouldTruncateTornRecordAtTheEndOfWriteAheadLog() throws IOException {
+        try (InMemoryQuotationStore store = openStore()) {
+            store.insert(quotation("1", "Veni, vidi, vici."));
+        }
+        long validLength = Files.size(logPath());
+        Files.write(logPath(), new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (InMemoryQuotationStore store = openStore()) {
+            assertEquals(1, store.count());
+            assertEquals(validLength, Files.size(logPath()));
+            store.insert(quotation("2", "Alea iacta est."));
+        }
+
+        try (InMemoryQuotationStore store = openStore()) {
+            assertEquals(List.of("1", "2"), ids(store.findAll(IN_CREATION_ORDER, 0, 10)));
+        }
+    }
+
+    @Test
+    void shouldKeepLiveQuotationsInOrderAfterCompaction() throws IOException {
+        try (InMemoryQuotationStore store = openStore()) {
+            for (int i = 0; i < 100; i++) {
+                store.insert(quotation(String.valueOf(i), "Quotation " + i));
+            }
+            for (int i = 0; i < 100; i += 2) {
+                store.delete(String.valueOf(i));
+            }
+            long sizeBeforeCompaction = Files.size(logPath());
+            store.compact();
+            assertTrue(Files.size(logPath()) < sizeBeforeCompaction);
+            store.insert(quotation("100", "Quotation 100"));
+        }
+
+        try (InMemoryQuotationStore store = openStore()) {
+            assertEquals(51, store.count());
+            assertEquals(List.of("1", "3", "5"), ids(store.findAll(IN_CREATION_ORDER, 0, 3)));
+            assertEquals(List.of("99", "100"), ids(store.findAll(IN_CREATION_ORDER, 49, 10)));
+        }
+    }
+
+    @Test
+    void shouldListQuotationsByIdAndByCreationInBothDirections() throws IOException {
+        try (InMemoryQuotationStore store = openStore()) {
+            store.insert(quotation("b", "Alea iacta est."));
+            store.insert(quotation("c", "Divide et impera."));
+            store.insert(quotation("a", "Veni, vidi, vici."));
+            store.delete("c");
+
+            assertEquals(List.of("a", "b"), ids(store.findAll(QuotationSort.DEFAULT, 0, 10)));
+            assertEquals(List.of("b", "a"),
+                    ids(store.findAll(new QuotationSort(QuotationSort.Key.ID, Sort.Direction.DESC), 0, 10)));
+            assertEquals(List.of("b", "a"), ids(store.findAll(IN_CREATION_ORDER, 0, 10)));
+            assertEquals(List.of("b"),
+                    ids(store.findAll(new QuotationSort(QuotationSort.Key.CREATED, Sort.Direction.DESC), 1, 10)));
+        }
+    }
+
+    @Test
+    void shouldRejectQuotationWithSameContentAndAuthorIgnoringCaseOfLastName() throws IOException {
+        try (InMemoryQuotationStore store = openStore()) {
+            assertTrue(store.insert(new QuotationResource("1", "Veni, vidi, vici.", new Author("Julius", "Caesar"))));
+
+            assertFalse(store.insert(new QuotationResource("2", "Veni, vidi, vici.", new Author("Julius", "CAESAR"))));
+            assertTrue(store.insert(new QuotationResource("3", "Veni, vidi, vici.", new Author("Gaius", "Caesar"))));
+            assertTrue(store.delete("1"));
+            assertTrue(store.insert(new QuotationResource("4", "Veni, vidi, vici.", new Author("Julius", "Caesar"))));
+        }
+    }
+
+    private InMemoryQuotationStore openStore() throws IOException {
+        return new InMemoryQuotationStore(logPath(), true, Duration.ofHours(1), 10_000);
+    }
+
+    private Path logPath() {
+        return directory.resolve("quotations.wal");
+    }
+
+    private static QuotationResource quotation(String id, String content) {
+        return new QuotationResource(id, content, new Author("Julius", "Caesar"));
+    }
+
+    private static List<String> ids(List<QuotationResource> quotations) {
+        return quotations.stream().map(QuotationResource::getId).collect(Collectors.toList());
+    }
+}
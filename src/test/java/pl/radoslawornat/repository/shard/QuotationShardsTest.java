@@ -0,0 +1,144 @@
+package pl.radoslawornat.repository.shard;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import pl.radoslawornat.model.generator.CustomIdGenerator;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotationShardsTest {
+
+    private static final int SHARDS = 3;
+
+    private QuotationShards quotationShards;
+
+    @AfterEach
+    void closeShards() throws IOException {
+        if (quotationShards != null) {
+            quotationShards.close();
+        }
+    }
+
+    @Test
+    void shouldOnlyMoveKeysToAddedShardWhenShardCountGrows() {
+        ShardRouter threeShards = new ShardRouter(3);
+        ShardRouter fourShards = new ShardRouter(4);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String quotationId = CustomIdGenerator.nextId();
+            int before = threeShards.shardOfQuotation(quotationId);
+            int after = fourShards.shardOfQuotation(quotationId);
+            if (before != after) {
+                assertEquals(3, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 2_000 && moved < 3_000, "About a quarter of the keys should move, moved " + moved);
+    }
+
+    @Test
+    void shouldIgnoreCaseOfLastNameInClaimKey() {
+        assertEquals(ShardRouter.claimKey("Veni, vidi, vici.", "Julius", "Caesar"),
+                ShardRouter.claimKey("Veni, vidi, vici.", "Julius", "CAESAR"));
+        assertNotEquals(ShardRouter.claimKey("Veni, vidi, vici.", "Julius", "Caesar"),
+                ShardRouter.claimKey("Veni, vidi, vici.", "julius", "Caesar"));
+    }
+
+    @Test
+    void shouldMergePagesOfAllShardsInListingOrder() {
+        quotationShards = openShards("merge");
+        Instant start = Instant.parse("2021-09-01T10:00:00Z");
+        List<ShardedQuotation> stored = IntStream.range(0, 50)
+                .mapToObj(i -> quotation(start.plusSeconds(i / 2)))
+                .collect(Collectors.toList());
+        stored.forEach(quotation -> assertTrue(quotationShards.shardOfQuotation(quotation.getId()).insert(quotation)));
+        quotationShards.getShards().forEach(shard -> assertTrue(shard.count() > 0));
+
+        List<String> byCreated = stored.stream()
+                .sorted(Comparator.comparing(ShardedQuotation::getCreatedAt).thenComparing(ShardedQuotation::getId))
+                .map(ShardedQuotation::getId)
+                .collect(Collectors.toList());
+        assertEquals(byCreated.subList(20, 27), ids(quotationShards.findPage(
+                new QuotationSort(QuotationSort.Key.CREATED, Sort.Direction.ASC), 20, 7)));
+
+        List<String> byIdDescending = stored.stream()
+                .map(ShardedQuotation::getId)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+        List<String> pages = new ArrayList<>();
+        for (int page = 0; page < 6; page++) {
+            pages.addAll(ids(quotationShards.findPage(
+                    new QuotationSort(QuotationSort.Key.ID, Sort.Direction.DESC), page * 10L, 10)));
+        }
+        assertEquals(byIdDescending, pages);
+        assertEquals(50, quotationShards.count());
+    }
+
+    @Test
+    void shouldFindQuotationsOfSeveralShardsByIds() {
+        quotationShards = openShards("lookup");
+        Instant createdAt = Instant.parse("2021-09-01T10:00:00Z");
+        List<ShardedQuotation> stored = IntStream.range(0, 10)
+                .mapToObj(i -> quotation(createdAt))
+                .collect(Collectors.toList());
+        stored.forEach(quotation -> quotationShards.shardOfQuotation(quotation.getId()).insert(quotation));
+
+        List<String> requested = ids(stored.subList(0, 6));
+        requested.add("missing");
+        Map<String, ShardedQuotation> found = quotationShards.findByIds(requested);
+
+        assertEquals(6, found.size());
+        ShardedQuotation expected = stored.get(3);
+        assertEquals(expected.getQuotation().getContent(), found.get(expected.getId()).getQuotation().getContent());
+        assertFalse(found.containsKey("missing"));
+    }
+
+    @Test
+    void shouldUpdateQuotationOnlyWhenItFollowsStoredVersion() {
+        quotationShards = openShards("versions-" + CustomIdGenerator.nextId());
+        ShardedQuotation quotation = quotation(Instant.parse("2021-09-01T10:00:00Z"));
+        QuotationShard shard = quotationShards.shardOfQuotation(quotation.getId());
+        shard.insert(quotation);
+        Instant now = Instant.parse("2021-09-01T11:00:00Z");
+
+        assertTrue(shard.update(new ShardedQuotation(quotation.getQuotation(), quotation.getCreatedAt(), now, 1)));
+        assertFalse(shard.update(new ShardedQuotation(quotation.getQuotation(), quotation.getCreatedAt(), now, 1)));
+        assertEquals(1, shard.findById(quotation.getId()).orElseThrow().getVersion());
+    }
+
+    private static QuotationShards openShards(String name) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + name + "-shard-" + i + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            dataSources.add(dataSource);
+        }
+        QuotationShards quotationShards = new QuotationShards(dataSources, SHARDS);
+        quotationShards.createSchema();
+        return quotationShards;
+    }
+
+    private static ShardedQuotation quotation(Instant createdAt) {
+        String quotationId = CustomIdGenerator.nextId();
+        return new ShardedQuotation(new QuotationResource(quotationId, "Quotation " + quotationId, "Julius", "Caesar"),
+                createdAt, createdAt, 0);
+    }
+
+    private static List<String> ids(List<ShardedQuotation> quotations) {
+        return quotations.stream().map(ShardedQuotation::getId).collect(Collectors.toList());
+    }
+}
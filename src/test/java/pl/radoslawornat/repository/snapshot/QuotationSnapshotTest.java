@@ -0,0 +1,100 @@
+package pl.radoslawornat.repository.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotationSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadQuotationsInExportOrder() throws IOException {
+        List<QuotationResource> quotations = List.of(
+                new QuotationResource("c-id", "Veni, vidi, vici.", new Author("Julius", "Caesar")),
+                new QuotationResource("a-id", "Zaufanie to podstawa.", new Author("Józef", "Piłsudski")),
+                new QuotationResource("b-id", "Alea iacta est.", new Author("Julius", "Caesar")));
+        Path path = export(quotations);
+
+        QuotationSnapshot snapshot = QuotationSnapshot.open(path);
+
+        assertEquals(3, snapshot.size());
+        for (int i = 0; i < quotations.size(); i++) {
+            QuotationResource quotation = snapshot.read(i, QuotationField.ALL);
+            assertEquals(quotations.get(i).getId(), quotation.getId());
+            assertEquals(quotations.get(i).getContent(), quotation.getContent());
+            assertEquals(quotations.get(i).getAuthor().getFirstName(), quotation.getAuthor().getFirstName());
+            assertEquals(quotations.get(i).getAuthor().getLastName(), quotation.getAuthor().getLastName());
+        }
+    }
+
+    @Test
+    void shouldFindQuotationByIdWithSelectedFieldsOnly() throws IOException {
+        Path path = export(List.of(
+                new QuotationResource("c-id", "Veni, vidi, vici.", new Author("Julius", "Caesar")),
+                new QuotationResource("a-id", "Zaufanie to podstawa.", new Author("Józef", "Piłsudski")),
+                new QuotationResource("b-id", "Alea iacta est.", new Author("Julius", "Caesar"))));
+
+        QuotationSnapshot snapshot = QuotationSnapshot.open(path);
+        Optional<QuotationResource> quotation =
+                snapshot.findById("a-id", EnumSet.of(QuotationField.ID, QuotationField.AUTHOR));
+
+        assertTrue(quotation.isPresent());
+        assertNull(quotation.get().getContent());
+        assertEquals("Piłsudski", quotation.get().getAuthor().getLastName());
+        assertTrue(snapshot.findById("c-id", QuotationField.ALL).isPresent());
+        assertTrue(snapshot.findById("d-id", QuotationField.ALL).isEmpty());
+        assertTrue(snapshot.findById("a-i", QuotationField.ALL).isEmpty());
+    }
+
+    @Test
+    void shouldOpenEmptySnapshot() throws IOException {
+        QuotationSnapshot snapshot = QuotationSnapshot.open(export(List.of()));
+
+        assertEquals(0, snapshot.size());
+        assertTrue(snapshot.findById("a-id", QuotationField.ALL).isEmpty());
+    }
+
+    @Test
+    void shouldRejectFileWhichIsNotSnapshot() throws IOException {
+        Path path = Files.write(directory.resolve("quotations.json"), "{\"content\": []}".getBytes());
+
+        assertThrows(IOException.class, () -> QuotationSnapshot.open(path));
+    }
+
+    @Test
+    void shouldLeaveNoFileWhenExportIsNotCommitted() throws IOException {
+        Path path = directory.resolve("quotations.snapshot");
+        try (QuotationSnapshotWriter writer = new QuotationSnapshotWriter(path)) {
+            writer.append(new QuotationResource("a-id", "Alea iacta est.", new Author("Julius", "Caesar")));
+        }
+
+        assertFalse(Files.exists(path));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private Path export(List<QuotationResource> quotations) throws IOException {
+        Path path = directory.resolve("quotations.snapshot");
+        try (QuotationSnapshotWriter writer = new QuotationSnapshotWriter(path)) {
+            for (QuotationResource quotation : quotations) {
+                writer.append(quotation);
+            }
+            writer.commit();
+        }
+        return path;
+    }
+}
@@ -0,0 +1,89 @@
+package pl.radoslawornat.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.AuthorRepository;
+import pl.radoslawornat.repository.QuotationRepository;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Saves the same quotation twice while the first save is not committed yet, so the duplicate check of the second
+ * save cannot see the first one and only the unique constraint keeps the quotation from being stored twice.
+ */
+@SpringBootTest
+@ActiveProfiles("query-budget")
+class QuotationConcurrentSaveTest {
+
+    private static final long COMMIT_DELAY_MILLIS = 300;
+
+    @Autowired
+    QuotationService quotationService;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    QuotationRepository quotationRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setup() {
+        if (authorRepository.findByFirstNameAndLastName("Julius", "Caesar").isEmpty()) {
+            authorRepository.save(new Author("Julius", "Caesar"));
+        }
+    }
+
+    /**
+     * The author exists up front, otherwise the second save would wait for the author inserted by the first one
+     * and see the committed quotation afterwards.
+     */
+    @Test
+    void saveQuotationMethodShouldStoreOneQuotationWhenSameQuotationIsSavedConcurrently() throws Exception {
+        QuotationDto quotationDto = new QuotationDto("Veni, vidi, vici. " + UUID.randomUUID(),
+                new Author("Julius", "Caesar"));
+        long quotations = quotationRepository.count();
+        CountDownLatch firstInserted = new CountDownLatch(1);
+
+        CompletableFuture<QuotationResource> first = CompletableFuture.supplyAsync(() ->
+                new TransactionTemplate(transactionManager).execute(status -> {
+                    QuotationResource saved = quotationService.saveQuotation(quotationDto);
+                    firstInserted.countDown();
+                    sleep(COMMIT_DELAY_MILLIS);
+                    return saved;
+                }));
+        assertTrue(firstInserted.await(10, TimeUnit.SECONDS));
+        CompletableFuture<QuotationResource> second =
+                CompletableFuture.supplyAsync(() -> quotationService.saveQuotation(quotationDto));
+
+        assertNotNull(first.get(10, TimeUnit.SECONDS));
+        ExecutionException exc = assertThrows(ExecutionException.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertTrue(exc.getCause() instanceof QuotationAlreadyExistsException);
+        assertEquals(quotations + 1, quotationRepository.count());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
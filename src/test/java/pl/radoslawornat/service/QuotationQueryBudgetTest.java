@@ -0,0 +1,220 @@
+package pl.radoslawornat.service;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import pl.radoslawornat.cache.QuotationCache;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.exception.QuotationNotFoundException;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationSort;
+import pl.radoslawornat.repository.AuthorRepository;
+import pl.radoslawornat.repository.QuotationChangeRepository;
+import pl.radoslawornat.repository.QuotationRepository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs service operations against an embedded database and fails when an operation executes more statements
+ * than its budget, fetches entities one by one (N+1), repeats a statement or runs a slow statement.
+ * Every write additionally takes a change log sequence number and appends one row to the change log.
+ */
+@SpringBootTest
+@ActiveProfiles("query-budget")
+class QuotationQueryBudgetTest {
+
+    private static final int CHANGE_LOG_APPEND = 2;
+    private static final long SLOW_STATEMENT_MILLIS = 100;
+
+    @Autowired
+    QuotationService quotationService;
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    QuotationRepository quotationRepository;
+
+    @Autowired
+    QuotationChangeRepository quotationChangeRepository;
+
+    @Autowired
+    QuotationCache quotationCache;
+
+    @Autowired
+    StatementRecorder statementRecorder;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        quotationRepository.deleteAllInBatch();
+        quotationChangeRepository.deleteAllInBatch();
+        quotationCache.clear();
+        if (authorRepository.findByFirstNameAndLastName("Julius", "Caesar").isEmpty()) {
+            authorRepository.save(new Author("Julius", "Caesar"));
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        quotationService.saveQuotation(quotationDto("Veni, vidi, vici."));
+    }
+
+    @Test
+    void listAllQuotationsShouldExecuteSelectAndCount() {
+        for (int i = 0; i < 10; i++) {
+            quotationService.saveQuotation(quotationDto("Quotation " + i));
+        }
+
+        assertWithinBudget("list", 2, () -> quotationService.listAllQuotations(1, 5, QuotationField.ALL,
+                new QuotationSort(QuotationSort.Key.AUTHOR_LAST_NAME, Sort.Direction.ASC)));
+        assertWithinBudget("list of selected fields", 2,
+                () -> quotationService.listAllQuotations(1, 5, QuotationField.parse("author").orElseThrow(),
+                        QuotationSort.DEFAULT));
+    }
+
+    @Test
+    void saveQuotationShouldExecuteSingleInsert() {
+        assertWithinBudget("save", 1 + CHANGE_LOG_APPEND,
+                () -> quotationService.saveQuotation(quotationDto("Alea iacta est.")));
+    }
+
+    @Test
+    void updateQuotationShouldExecuteUpdateAndReadBackVersion() {
+        String quotationId = quotationService.saveQuotation(quotationDto("Alea iacta est.")).getId();
+
+        assertWithinBudget("update", 2 + CHANGE_LOG_APPEND,
+                () -> quotationService.updateQuotation(quotationDto("Alea iacta est!"), quotationId));
+    }
+
+    @Test
+    void deleteQuotationShouldExecuteSingleDelete() {
+        String quotationId = quotationService.saveQuotation(quotationDto("Alea iacta est.")).getId();
+
+        assertWithinBudget("delete", 1 + CHANGE_LOG_APPEND, () -> quotationService.deleteQuotationById(quotationId));
+        assertWithinBudget("delete of missing quotation", 1, () -> assertThrows(QuotationNotFoundException.class,
+                () -> quotationService.deleteQuotationById(quotationId)));
+    }
+
+    @Test
+    void lookupShouldResolveUncachedQuotationsWithSingleSelect() {
+        List<String> quotationIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            quotationIds.add(quotationService.saveQuotation(quotationDto("Quotation " + i)).getId());
+        }
+        quotationCache.clear();
+
+        assertWithinBudget("get", 1, () -> quotationService.getQuotationById(quotationIds.get(0)));
+        assertWithinBudget("lookup", 1, () -> quotationService.getQuotationsByIds(quotationIds));
+        assertWithinBudget("cached lookup", 0, () -> quotationService.getQuotationsByIds(quotationIds));
+    }
+
+    private void assertWithinBudget(String operation, int statementBudget, Runnable serviceCall) {
+        statementRecorder.reset();
+        statistics.clear();
+
+        serviceCall.run();
+
+        List<String> statements = statementRecorder.getStatements();
+        String executed = String.join("\n", statements);
+        assertTrue(statements.size() <= statementBudget, () -> String.format(
+                "%s executed %s statements, its budget is %s:%n%s", operation, statements.size(), statementBudget,
+                executed));
+        assertEquals(statements.size(), new HashSet<>(statements).size(),
+                () -> String.format("%s repeated a statement, likely an N+1 pattern:%n%s", operation, executed));
+        assertEquals(0, statistics.getEntityFetchCount() + statistics.getCollectionFetchCount(),
+                () -> String.format("%s lazily fetched %s entities and %s collections (N+1)", operation,
+                        statistics.getEntityFetchCount(), statistics.getCollectionFetchCount()));
+        assertTrue(statementRecorder.getSlowStatements().isEmpty(), () -> String.format(
+                "%s ran statements slower than %s ms:%n%s", operation, SLOW_STATEMENT_MILLIS,
+                String.join("\n", statementRecorder.getSlowStatements())));
+    }
+
+    private static QuotationDto quotationDto(String content) {
+        return new QuotationDto(content, new Author("Julius", "Caesar"));
+    }
+
+    /**
+     * Records every statement that reaches the datasource, whichever thread or repository method executes it.
+     */
+    static final class StatementRecorder implements QueryExecutionListener {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+        private final List<String> slowStatements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+            List<String> executedQueries = queries.stream().map(QueryInfo::getQuery).collect(Collectors.toList());
+            statements.addAll(executedQueries);
+            if (executionInfo.getElapsedTime() > SLOW_STATEMENT_MILLIS) {
+                executedQueries.forEach(query -> slowStatements.add(executionInfo.getElapsedTime() + " ms: " + query));
+            }
+        }
+
+        List<String> getStatements() {
+            return List.copyOf(statements);
+        }
+
+        List<String> getSlowStatements() {
+            return List.copyOf(slowStatements);
+        }
+
+        void reset() {
+            statements.clear();
+            slowStatements.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class StatementRecorderConfig {
+
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor statementRecordingDataSourcePostProcessor(
+                ObjectProvider<StatementRecorder> statementRecorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(statementRecorder.getObject())
+                            .build();
+                }
+            };
+        }
+    }
+}
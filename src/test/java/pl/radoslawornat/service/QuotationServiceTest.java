@@ -3,23 +3,44 @@ package pl.radoslawornat.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import pl.radoslawornat.cache.LocalQuotationInvalidationBus;
+import pl.radoslawornat.cache.QuotationCache;
+import pl.radoslawornat.config.datasource.PrimaryDataSourceContext;
 import pl.radoslawornat.model.Author;
 import pl.radoslawornat.model.Quotation;
 import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
 import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
 import pl.radoslawornat.model.exception.QuotationNotFoundException;
 import pl.radoslawornat.model.exception.QuotationServiceException;
 import pl.radoslawornat.model.mapper.QuotationMapper;
+import pl.radoslawornat.model.response.QuotationField;
+import pl.radoslawornat.model.response.QuotationLookupResult;
 import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.model.response.QuotationSort;
 import pl.radoslawornat.repository.QuotationRepository;
+import pl.radoslawornat.service.author.AuthorDictionary;
+import pl.radoslawornat.service.duplicate.NearDuplicateDetector;
 import pl.radoslawornat.service.impl.QuotationServiceImpl;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,37 +52,156 @@ class QuotationServiceTest {
     @Mock
     QuotationRepository quotationRepository;
 
+    @Mock
+    AuthorDictionary authorDictionary;
+
+    @Mock
+    NearDuplicateDetector nearDuplicateDetector;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     QuotationMapper quotationMapper = new QuotationMapper();
 
+    QuotationCache quotationCache = new QuotationCache(new LocalQuotationInvalidationBus(), 100, Duration.ofMinutes(1));
+
     QuotationService quotationService;
 
     @BeforeEach
     void setup() {
-        quotationService = new QuotationServiceImpl(quotationRepository, quotationMapper);
+        quotationService = new QuotationServiceImpl(quotationRepository, quotationMapper, authorDictionary,
+                nearDuplicateDetector, quotationCache, eventPublisher);
     }
 
     @Test
     void listAllQuotationsMethodShouldReturnCorrectPageOfQuotations() {
-        Page<Quotation> quotations = generateExamplePageOfQuotations();
-        PageRequest pageRequest = PageRequest.of(0, 5);
-        when(quotationRepository.findAll(pageRequest)).thenReturn(quotations);
+        Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
+        PageRequest pageRequest = PageRequest.of(0, 5, QuotationSort.DEFAULT.toSort());
+        when(quotationRepository.findAllQuotationResources(pageRequest)).thenReturn(quotations);
 
-        Page<QuotationResource> result = quotationService.listAllQuotations(0, 5);
+        Page<QuotationResource> result =
+                quotationService.listAllQuotations(0, 5, QuotationField.ALL, QuotationSort.DEFAULT);
         assertEquals(quotations.getTotalPages(), result.getTotalPages());
         assertEquals(quotations.getTotalElements(), result.getTotalElements());
 
-        verify(quotationRepository).findAll(pageRequest);
+        verify(quotationRepository).findAllQuotationResources(pageRequest);
+    }
+
+    @Test
+    void listAllQuotationsMethodShouldBreakTiesOfSelectedSortById() {
+        Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
+        QuotationSort sort = new QuotationSort(QuotationSort.Key.CREATED, Sort.Direction.DESC);
+        PageRequest pageRequest = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        when(quotationRepository.findAllQuotationResources(pageRequest)).thenReturn(quotations);
+
+        quotationService.listAllQuotations(0, 5, QuotationField.ALL, sort);
+
+        verify(quotationRepository).findAllQuotationResources(pageRequest);
+    }
+
+    @Test
+    void listAllQuotationsMethodShouldNotJoinQueryInProgressWhenPrimaryIsRequired() throws Exception {
+        Page<QuotationResource> quotations = generateExamplePageOfQuotationResources();
+        PageRequest pageRequest = PageRequest.of(0, 5, QuotationSort.DEFAULT.toSort());
+        CountDownLatch firstQueryStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstQuery = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(quotationRepository.findAllQuotationResources(pageRequest)).thenAnswer(invocation -> {
+            if (queries.incrementAndGet() == 1) {
+                firstQueryStarted.countDown();
+                releaseFirstQuery.await(5, TimeUnit.SECONDS);
+            }
+            return quotations;
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Page<QuotationResource>> inProgress = callers.submit(() -> listOnPrimary(quotationService));
+            assertTrue(firstQueryStarted.await(5, TimeUnit.SECONDS));
+
+            Future<Page<QuotationResource>> afterWrite = callers.submit(() -> listOnPrimary(quotationService));
+
+            assertNotNull(afterWrite.get(5, TimeUnit.SECONDS));
+            assertEquals(2, queries.get());
+            releaseFirstQuery.countDown();
+            assertNotNull(inProgress.get(5, TimeUnit.SECONDS));
+        } finally {
+            releaseFirstQuery.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    private static Page<QuotationResource> listOnPrimary(QuotationService quotationService) {
+        PrimaryDataSourceContext.requirePrimary();
+        try {
+            return quotationService.listAllQuotations(0, 5, QuotationField.ALL, QuotationSort.DEFAULT);
+        } finally {
+            PrimaryDataSourceContext.clear();
+        }
+    }
+
+    @Test
+    void getQuotationByIdMethodShouldServeRepeatedLookupsFromCache() {
+        Quotation quotation = generateQuotationWithArgs("Veni, vidi, vici.", new Author("Julius", "Caesar"));
+        quotation.setVersion(1L);
+        when(quotationRepository.findWithAuthorById(quotation.getId())).thenReturn(Optional.of(quotation));
+
+        QuotationResource firstResult = quotationService.getQuotationById(quotation.getId());
+        QuotationResource secondResult = quotationService.getQuotationById(quotation.getId());
+
+        assertEquals(quotation.getContent(), firstResult.getContent());
+        assertSame(firstResult, secondResult);
+        verify(quotationRepository, times(1)).findWithAuthorById(quotation.getId());
+    }
+
+    @Test
+    void getQuotationByIdMethodShouldReadCacheMissFromPrimary() {
+        Quotation quotation = generateQuotationWithArgs("Veni, vidi, vici.", new Author("Julius", "Caesar"));
+        when(quotationRepository.findWithAuthorById(quotation.getId())).thenAnswer(invocation -> {
+            assertTrue(PrimaryDataSourceContext.isPrimaryRequired());
+            return Optional.of(quotation);
+        });
+
+        quotationService.getQuotationById(quotation.getId());
+
+        assertFalse(PrimaryDataSourceContext.isPrimaryRequired());
+        verify(quotationRepository).findWithAuthorById(quotation.getId());
+    }
+
+    @Test
+    void getQuotationByIdMethodShouldThrowQuotationNotFoundExceptionWhenQuotationDoesNotExist() {
+        String quotationId = "1d8e6a4c-0b53-4c4f-9d0a-7c36b1c2f1aa";
+        when(quotationRepository.findWithAuthorById(quotationId)).thenReturn(Optional.empty());
+
+        assertThrows(QuotationNotFoundException.class, () -> quotationService.getQuotationById(quotationId));
+    }
+
+    @Test
+    void getQuotationsByIdsMethodShouldQueryOnlyCacheMissesAndKeepRequestedOrder() {
+        Quotation cached = generateQuotationWithArgs("Veni, vidi, vici.", new Author("Julius", "Caesar"));
+        Quotation stored = generateQuotationWithArgs("Alea iacta est.", new Author("Julius", "Caesar"));
+        quotationCache.put(quotationMapper.map(cached), 1);
+        when(quotationRepository.findWithAuthorByIdIn(List.of(stored.getId(), "missing")))
+                .thenReturn(List.of(stored));
+
+        QuotationLookupResult result =
+                quotationService.getQuotationsByIds(List.of(stored.getId(), cached.getId(), "missing", stored.getId()));
+
+        assertEquals(List.of(stored.getId(), cached.getId()),
+                List.of(result.getQuotations().get(0).getId(), result.getQuotations().get(1).getId()));
+        assertEquals(2, result.getQuotations().size());
+        assertEquals(List.of("missing"), result.getMissingIds());
+        assertTrue(quotationCache.get(stored.getId()).isPresent());
     }
 
     @Test
     void listAllQuotationsMethodShouldThrowQuotationServiceExceptionWhenNonTransientDataAccessExceptionOccurs() {
-        PageRequest pageRequest = PageRequest.of(0, 5);
-        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository).findAll(pageRequest);
+        PageRequest pageRequest = PageRequest.of(0, 5, QuotationSort.DEFAULT.toSort());
+        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository).findAllQuotationResources(pageRequest);
 
         assertThrows(QuotationServiceException.class,
-                () -> quotationService.listAllQuotations(0, 5));
+                () -> quotationService.listAllQuotations(0, 5, QuotationField.ALL, QuotationSort.DEFAULT));
 
-        verify(quotationRepository).findAll(pageRequest);
+        verify(quotationRepository).findAllQuotationResources(pageRequest);
     }
 
     @Test
@@ -69,22 +209,19 @@ class QuotationServiceTest {
         String content = "Główną nauką płynącą z historii jest to, że ludzkość niczego się nie uczy.";
         Author author = new Author("Winston", "Churchill");
         QuotationDto quotationDto = new QuotationDto(content, author);
-        Quotation expectedQuotation = new Quotation(quotationDto);
-        when(quotationRepository.findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                content, author.getFirstName(), author.getLastName()
-        )).thenReturn(Optional.empty());
-        when(quotationRepository.save(any(Quotation.class))).thenReturn(expectedQuotation);
+        when(authorDictionary.resolve(any(Author.class))).thenReturn(new Author(7L, "Winston", "Churchill"));
+        when(quotationRepository.insertIfAbsent(anyString(), eq(content), eq(Quotation.contentHash(content)), eq(7L),
+                eq(author.getFirstName()), eq(author.getLastName()))).thenReturn(1);
 
         QuotationResource result = quotationService.saveQuotation(quotationDto);
 
-        assertEquals(expectedQuotation.getAuthor().getFirstName(), result.getAuthor().getFirstName());
-        assertEquals(expectedQuotation.getAuthor().getLastName(), result.getAuthor().getLastName());
-        assertEquals(expectedQuotation.getContent(), result.getContent());
+        assertNotNull(result.getId());
+        assertEquals(author.getFirstName(), result.getAuthor().getFirstName());
+        assertEquals(author.getLastName(), result.getAuthor().getLastName());
+        assertEquals(content, result.getContent());
 
-        verify(quotationRepository).findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                content, author.getFirstName(), author.getLastName()
-        );
-        verify(quotationRepository).save(any(Quotation.class));
+        verify(quotationRepository).insertIfAbsent(eq(result.getId()), eq(content), eq(Quotation.contentHash(content)),
+                eq(7L), eq(author.getFirstName()), eq(author.getLastName()));
     }
 
     @Test
@@ -94,20 +231,39 @@ class QuotationServiceTest {
         QuotationDto quotationDto = new QuotationDto(content, author);
 
         String quotationId = "someQuotationId";
-        Quotation quotation = generateQuotationWithFixedId(quotationId, content, author);
 
-        when(quotationRepository.existsById(quotationId)).thenReturn(true);
-        when(quotationRepository.save(any(Quotation.class))).thenReturn(quotation);
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(quotationRepository.updateQuotation(eq(quotationId), eq(content), eq(Quotation.contentHash(content)),
+                any(Author.class))).thenReturn(1);
+        when(quotationRepository.findVersionById(quotationId)).thenReturn(Optional.of(3L));
 
         QuotationResource result = quotationService.updateQuotation(quotationDto, quotationId);
 
         assertEquals(quotationDto.getAuthor().getFirstName(), result.getAuthor().getFirstName());
         assertEquals(quotationDto.getAuthor().getLastName(), result.getAuthor().getLastName());
         assertEquals(quotationDto.getContent(), result.getContent());
-        assertEquals(quotation.getId(), result.getId());
+        assertEquals(quotationId, result.getId());
 
-        verify(quotationRepository).existsById(quotationId);
-        verify(quotationRepository).save(any(Quotation.class));
+        verify(quotationRepository)
+                .updateQuotation(eq(quotationId), eq(content), eq(Quotation.contentHash(content)), any(Author.class));
+    }
+
+    @Test
+    void updateQuotationMethodShouldPublishVersionAssignedByDatabase() {
+        String content = "Alea iacta est.";
+        QuotationDto quotationDto = new QuotationDto(content, new Author("Julius", "Caesar"));
+        String quotationId = "someQuotationId";
+
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(quotationRepository.updateQuotation(eq(quotationId), eq(content), eq(Quotation.contentHash(content)),
+                any(Author.class))).thenReturn(1);
+        when(quotationRepository.findVersionById(quotationId)).thenReturn(Optional.of(5L));
+
+        quotationService.updateQuotation(quotationDto, quotationId);
+
+        ArgumentCaptor<QuotationChangedEvent> event = ArgumentCaptor.forClass(QuotationChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(5L, event.getValue().getVersion());
     }
 
     @Test
@@ -117,12 +273,14 @@ class QuotationServiceTest {
         QuotationDto quotationDto = new QuotationDto(content, author);
         String quotationId = "someQuotationId";
 
-        when(quotationRepository.existsById(quotationId)).thenReturn(false);
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(quotationRepository.updateQuotation(eq(quotationId), eq(content), eq(Quotation.contentHash(content)),
+                any(Author.class))).thenReturn(0);
 
         assertThrows(QuotationNotFoundException.class,
                 () -> quotationService.updateQuotation(quotationDto, quotationId));
 
-        verify(quotationRepository).existsById(quotationId);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
@@ -140,17 +298,44 @@ class QuotationServiceTest {
         String content = "Główną nauką płynącą z historii jest to, że ludzkość niczego się nie uczy.";
         Author author = new Author("Winston", "Churchill");
         QuotationDto quotationDto = new QuotationDto(content, author);
-        Quotation existingQuotation = generateQuotationWithArgs(content, author);
 
-        when(quotationRepository.findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                content, author.getFirstName(), author.getLastName()
-        )).thenReturn(Optional.of(existingQuotation));
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(quotationRepository.insertIfAbsent(anyString(), eq(content), eq(Quotation.contentHash(content)), any(),
+                eq(author.getFirstName()), eq(author.getLastName()))).thenReturn(0);
 
         assertThrows(QuotationAlreadyExistsException.class, ()-> quotationService.saveQuotation(quotationDto));
 
-        verify(quotationRepository).findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                content, author.getFirstName(), author.getLastName()
-        );
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void saveQuotationMethodShouldThrowQuotationAlreadyExistsExceptionWhenConcurrentSaveWonUniqueIndex() {
+        String content = "Główną nauką płynącą z historii jest to, że ludzkość niczego się nie uczy.";
+        Author author = new Author("Winston", "Churchill");
+        QuotationDto quotationDto = new QuotationDto(content, author);
+
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("uk_quotation_author_id_content_hash")).when(quotationRepository)
+                .insertIfAbsent(anyString(), eq(content), eq(Quotation.contentHash(content)), any(),
+                        eq(author.getFirstName()), eq(author.getLastName()));
+
+        assertThrows(QuotationAlreadyExistsException.class, () -> quotationService.saveQuotation(quotationDto));
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void saveQuotationMethodShouldThrowQuotationAlreadyExistsExceptionWhenNearDuplicateExists() {
+        String content = "Główną nauką płynącą z historii jest to, że ludzkość niczego się nie uczy!";
+        Author author = new Author("Winston", "Churchill");
+        QuotationDto quotationDto = new QuotationDto(content, author);
+
+        when(nearDuplicateDetector.findNearDuplicate(eq(content), any(Author.class)))
+                .thenReturn(Optional.of("1d8e6a4c-0b53-4c4f-9d0a-7c36b1c2f1aa"));
+
+        assertThrows(QuotationAlreadyExistsException.class, () -> quotationService.saveQuotation(quotationDto));
+
+        verify(quotationRepository, never()).insertIfAbsent(any(), any(), any(), any(), any(), any());
     }
 
     @Test
@@ -158,17 +343,12 @@ class QuotationServiceTest {
         String content = "Główną nauką płynącą z historii jest to, że ludzkość niczego się nie uczy.";
         Author author = new Author("Winston", "Churchill");
         QuotationDto quotationDto = new QuotationDto(content, author);
-        when(quotationRepository.findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                content, author.getFirstName(), author.getLastName()
-        )).thenReturn(Optional.empty());
-        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository).save(any(Quotation.class));
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository)
+                .insertIfAbsent(anyString(), eq(content), eq(Quotation.contentHash(content)), any(),
+                        eq(author.getFirstName()), eq(author.getLastName()));
 
         assertThrows(QuotationServiceException.class, () -> quotationService.saveQuotation(quotationDto));
-
-        verify(quotationRepository).findByContentAndAuthor_FirstNameAndAuthor_LastNameIgnoreCase(
-                content, author.getFirstName(), author.getLastName()
-        );
-        verify(quotationRepository).save(any(Quotation.class));
     }
 
     @Test
@@ -177,50 +357,45 @@ class QuotationServiceTest {
         Author author = new Author("Winston", "Churchill");
         QuotationDto quotationDto = new QuotationDto(content, author);
         String quotationId = "someQuotationId";
-        when(quotationRepository.existsById(quotationId)).thenReturn(true);
-        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository).save(any(Quotation.class));
+        when(authorDictionary.resolve(any(Author.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository)
+                .updateQuotation(eq(quotationId), eq(content), eq(Quotation.contentHash(content)), any(Author.class));
 
         assertThrows(QuotationServiceException.class,
                 () -> quotationService.updateQuotation(quotationDto, quotationId));
-
-        verify(quotationRepository).existsById(quotationId);
-        verify(quotationRepository).save(any(Quotation.class));
     }
 
     @Test
     void deleteQuotationByIdMethodShouldRemoveQuotationWhenCorrectQuotationIdIsPassed() {
         String quotationId = "someQuotationId";
 
-        when(quotationRepository.existsById(quotationId)).thenReturn(true);
-        doNothing().when(quotationRepository).deleteById(quotationId);
+        when(quotationRepository.deleteQuotation(quotationId)).thenReturn(1);
 
         quotationService.deleteQuotationById(quotationId);
 
-        verify(quotationRepository).existsById(quotationId);
-        verify(quotationRepository).deleteById(quotationId);
+        verify(quotationRepository).deleteQuotation(quotationId);
+        verify(quotationRepository, never()).existsById(quotationId);
     }
 
     @Test
     void deleteQuotationByIdMethodShouldThrowQuotationNotFoundExceptionWhenQuotationForPassedIdDoesNotExist() {
         String quotationId = "someQuotationId";
 
-        when(quotationRepository.existsById(quotationId)).thenReturn(false);
+        when(quotationRepository.deleteQuotation(quotationId)).thenReturn(0);
 
         assertThrows(QuotationNotFoundException.class, ()->quotationService.deleteQuotationById(quotationId));
 
-        verify(quotationRepository).existsById(quotationId);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
     void deleteQuotationByIdMethodShouldThrowQuotationServiceExceptionWhenNonTransientDataAccessExceptionOccurs() {
         String quotationId = "someQuotationId";
 
-        when(quotationRepository.existsById(quotationId)).thenReturn(true);
-        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository).deleteById(quotationId);
+        doThrow(new NonTransientDataAccessException(""){}).when(quotationRepository).deleteQuotation(quotationId);
 
         assertThrows(QuotationServiceException.class, () -> quotationService.deleteQuotationById(quotationId));
 
-        verify(quotationRepository).existsById(quotationId);
-        verify(quotationRepository).deleteById(quotationId);
+        verify(quotationRepository).deleteQuotation(quotationId);
     }
-}
\ No newline at end of file
+}
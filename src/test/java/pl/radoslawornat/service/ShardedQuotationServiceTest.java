@@ -0,0 +1,158 @@
+package pl.radoslawornat.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.dto.QuotationDto;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.exception.QuotationAlreadyExistsException;
+import pl.radoslawornat.model.exception.QuotationServiceException;
+import pl.radoslawornat.model.generator.CustomIdGenerator;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.shard.QuotationShard;
+import pl.radoslawornat.repository.shard.QuotationShards;
+import pl.radoslawornat.repository.shard.ShardRouter;
+import pl.radoslawornat.repository.shard.ShardedQuotation;
+import pl.radoslawornat.service.impl.ShardedQuotationService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShardedQuotationServiceTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<DataSource> dataSources = new ArrayList<>();
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private QuotationShards quotationShards;
+    private ShardedQuotationService quotationService;
+
+    @BeforeEach
+    void openShards() {
+        String name = "service-" + CustomIdGenerator.nextId();
+        for (int i = 0; i < SHARDS; i++) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + name + "-shard-" + i + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+            dataSources.add(dataSource);
+        }
+        quotationShards = new QuotationShards(dataSources, SHARDS);
+        quotationShards.createSchema();
+        quotationService = new ShardedQuotationService(quotationShards, eventPublisher);
+    }
+
+    @AfterEach
+    void closeShards() throws IOException {
+        quotationShards.close();
+    }
+
+    @Test
+    void saveQuotationMethodShouldThrowQuotationAlreadyExistsExceptionForDuplicate() {
+        QuotationResource saved = quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar"));
+
+        assertThrows(QuotationAlreadyExistsException.class,
+                () -> quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "CAESAR")));
+
+        assertEquals(1, quotationShards.count());
+        assertEquals(Map.of(claimKey("Veni, vidi, vici.", "Julius", "Caesar"), saved.getId()), claims());
+    }
+
+    @Test
+    void saveQuotationMethodShouldReleaseClaimWhenQuotationCannotBeInserted() {
+        dataSources.forEach(dataSource -> new JdbcTemplate(dataSource).execute("DROP TABLE quotation"));
+
+        assertThrows(QuotationServiceException.class,
+                () -> quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar")));
+
+        assertTrue(claims().isEmpty());
+    }
+
+    @Test
+    void saveQuotationMethodShouldTakeOverClaimOfMissingQuotation() {
+        String claimKey = claimKey("Veni, vidi, vici.", "Julius", "Caesar");
+        quotationShards.shardOfClaim(claimKey).claim(claimKey, "missing");
+
+        QuotationResource saved = quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar"));
+
+        assertEquals(Map.of(claimKey, saved.getId()), claims());
+    }
+
+    @Test
+    void saveQuotationMethodShouldTakeOverClaimOfQuotationWithOtherContent() {
+        String claimKey = claimKey("Veni, vidi, vici.", "Julius", "Caesar");
+        ShardedQuotation changed = quotation("Alea iacta est.");
+        quotationShards.shardOfQuotation(changed.getId()).insert(changed);
+        quotationShards.shardOfClaim(claimKey).claim(claimKey, changed.getId());
+
+        QuotationResource saved = quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar"));
+
+        assertEquals(Map.of(claimKey, saved.getId()), claims());
+        assertEquals(2, quotationShards.count());
+    }
+
+    @Test
+    void updateQuotationMethodShouldMoveClaimToNewContent() {
+        QuotationResource saved = quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar"));
+
+        quotationService.updateQuotation(dto("Alea iacta est.", "Julius", "Caesar"), saved.getId());
+
+        assertEquals(Map.of(claimKey("Alea iacta est.", "Julius", "Caesar"), saved.getId()), claims());
+        assertNotNull(quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar")));
+        assertThrows(QuotationAlreadyExistsException.class,
+                () -> quotationService.saveQuotation(dto("Alea iacta est.", "Julius", "Caesar")));
+    }
+
+    @Test
+    void updateQuotationMethodShouldPublishVersionIncrementedByEveryUpdate() {
+        QuotationResource saved = quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar"));
+        quotationService.updateQuotation(dto("Alea iacta est.", "Julius", "Caesar"), saved.getId());
+        quotationService.updateQuotation(dto("Divide et impera.", "Julius", "Caesar"), saved.getId());
+
+        ArgumentCaptor<QuotationChangedEvent> events = ArgumentCaptor.forClass(QuotationChangedEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertEquals(List.of(0L, 1L, 2L),
+                events.getAllValues().stream().map(QuotationChangedEvent::getVersion).collect(Collectors.toList()));
+    }
+
+    @Test
+    void deleteQuotationByIdMethodShouldReleaseClaim() {
+        QuotationResource saved = quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar"));
+
+        quotationService.deleteQuotationById(saved.getId());
+
+        assertTrue(claims().isEmpty());
+        assertNotNull(quotationService.saveQuotation(dto("Veni, vidi, vici.", "Julius", "Caesar")));
+    }
+
+    private Map<String, String> claims() {
+        return quotationShards.getShards().stream()
+                .flatMap(shard -> shard.findClaimsAfter("", 100).stream())
+                .collect(Collectors.toMap(QuotationShard.Claim::getClaimKey, QuotationShard.Claim::getQuotationId));
+    }
+
+    private static QuotationDto dto(String content, String firstName, String lastName) {
+        return new QuotationDto(content, new Author(firstName, lastName));
+    }
+
+    private static ShardedQuotation quotation(String content) {
+        Instant now = Instant.parse("2021-09-01T10:00:00Z");
+        return new ShardedQuotation(new QuotationResource(CustomIdGenerator.nextId(), content, "Julius", "Caesar"),
+                now, now, 0);
+    }
+
+    private static String claimKey(String content, String firstName, String lastName) {
+        return ShardRouter.claimKey(content, firstName, lastName);
+    }
+}
@@ -0,0 +1,79 @@
+package pl.radoslawornat.service.author;
+
+import org.junit.jupiter.api.Test;
+import pl.radoslawornat.model.response.AuthorSuggestion;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorSuggestionIndexTest {
+
+    @Test
+    void shouldSuggestAuthorsIgnoringCaseAndDiacritics() {
+        AuthorSuggestionIndex index = new AuthorSuggestionIndex(50);
+        index.add("Stanisław", "Żółkiewski", 1);
+        index.add("Adam", "Mickiewicz", 1);
+
+        assertEquals(List.of("Żółkiewski"), lastNames(index.suggest("zol", 10)));
+        assertEquals(List.of("Żółkiewski"), lastNames(index.suggest("STANISLAW Z", 10)));
+        assertEquals(List.of("Mickiewicz"), lastNames(index.suggest("mickiewicz ad", 10)));
+        assertTrue(index.suggest("mickiewicz b", 10).isEmpty());
+        assertTrue(index.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void shouldRankAuthorsByQuotationCountAndSuggestEachAuthorOnce() {
+        AuthorSuggestionIndex index = new AuthorSuggestionIndex(50);
+        index.add("Adam", "Asnyk", 0);
+        index.add("Adam", "Mickiewicz", 1);
+        index.add("Adam", "Mickiewicz", 1);
+        index.add("Albert", "Camus", 1);
+        index.add("Adam", "Adamski", 1);
+
+        List<AuthorSuggestion> suggestions = index.suggest("a", 10);
+
+        assertEquals(List.of("Mickiewicz", "Adamski", "Camus", "Asnyk"), lastNames(suggestions));
+        assertEquals(2, suggestions.get(0).getQuotationCount());
+        assertEquals(0, suggestions.get(3).getQuotationCount());
+        assertEquals(List.of("Mickiewicz", "Adamski"), lastNames(index.suggest("a", 2)));
+        assertEquals(List.of("Adamski", "Asnyk"), lastNames(index.suggest("adam a", 10)));
+    }
+
+    @Test
+    void shouldKeepPrecomputedSuggestionsInLineWithWalkingTheNames() {
+        AuthorSuggestionIndex index = new AuthorSuggestionIndex(3);
+        for (int i = 0; i < 20; i++) {
+            index.add("Jan", "Kowalski" + i, i % 7);
+        }
+        index.add("Jan", "Kowalski3", 10);
+        index.add("Jan", "Kowalski19", 1);
+
+        List<String> precomputed = lastNames(index.suggest("kowal", 3));
+        List<String> walked = lastNames(index.suggest("kowalski", 50).subList(0, 3));
+
+        assertEquals(List.of("Kowalski3", "Kowalski13", "Kowalski19"), precomputed);
+        assertEquals(precomputed, walked);
+        assertEquals(precomputed, lastNames(index.suggest("jan", 3)));
+    }
+
+    @Test
+    void shouldBuildIndexFromQuotationCounts() {
+        AuthorSuggestionIndex index = new AuthorSuggestionIndex(2, List.of(
+                new AuthorSuggestion("Adam", "Asnyk", 7),
+                new AuthorSuggestion("Adam", "Mickiewicz", 42),
+                new AuthorSuggestion("Albert", "Camus", 3)));
+
+        List<AuthorSuggestion> suggestions = index.suggest("a", 2);
+
+        assertEquals(List.of("Mickiewicz", "Asnyk"), lastNames(suggestions));
+        assertEquals(42, suggestions.get(0).getQuotationCount());
+        assertEquals(List.of("Mickiewicz", "Asnyk", "Camus"), lastNames(index.suggest("a", 10)));
+        assertEquals(3, index.size());
+    }
+
+    private static List<String> lastNames(List<AuthorSuggestion> suggestions) {
+        return suggestions.stream().map(AuthorSuggestion::getLastName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,84 @@
+package pl.radoslawornat.service.bulkhead;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import pl.radoslawornat.config.datasource.PrimaryDataSourceContext;
+import pl.radoslawornat.model.exception.QuotationNotFoundException;
+import pl.radoslawornat.model.exception.QuotationServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    Bulkhead bulkhead = new Bulkhead("write", 1, 1, Duration.ofSeconds(2));
+
+    @AfterEach
+    void tearDown() {
+        bulkhead.close();
+        PrimaryDataSourceContext.clear();
+    }
+
+    @Test
+    void shouldRejectOperationsWhenThreadsAndQueueAreFull() throws Exception {
+        CountDownLatch operationStarted = new CountDownLatch(1);
+        CountDownLatch releaseOperation = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> bulkhead.call(() -> {
+                operationStarted.countDown();
+                await(releaseOperation);
+                return "running";
+            }));
+            assertTrue(operationStarted.await(5, TimeUnit.SECONDS));
+            Future<String> queued = callers.submit(() -> bulkhead.call(() -> "queued"));
+            for (int attempt = 0; attempt < 500 && bulkhead.getSaturation() < 1; attempt++) {
+                Thread.sleep(10);
+            }
+
+            QuotationServiceOverloadedException exc = assertThrows(QuotationServiceOverloadedException.class,
+                    () -> bulkhead.call(() -> "rejected"));
+            assertEquals(2, exc.getRetryAfterSeconds());
+            assertEquals(1, bulkhead.getRejections());
+
+            releaseOperation.countDown();
+            assertEquals("running", running.get(5, TimeUnit.SECONDS));
+            assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCarryPrimaryDataSourceFlagOverToWorkerThread() {
+        PrimaryDataSourceContext.requirePrimary();
+
+        assertTrue(bulkhead.call(PrimaryDataSourceContext::isPrimaryRequired));
+
+        PrimaryDataSourceContext.clear();
+        assertFalse(bulkhead.call(PrimaryDataSourceContext::isPrimaryRequired));
+    }
+
+    @Test
+    void shouldRethrowExceptionOfOperationUnchanged() {
+        QuotationNotFoundException exc = new QuotationNotFoundException("Cannot find quotation with id: 1");
+
+        assertSame(exc, assertThrows(QuotationNotFoundException.class, () -> bulkhead.run(() -> {
+            throw exc;
+        })));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pl.radoslawornat.service.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void shouldShareOneExecutionBetweenConcurrentCallsWithEqualKey() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("page-0", () -> {
+                executions.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "result";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("page-0", () -> {
+                    executions.incrementAndGet();
+                    return "other result";
+                })));
+            }
+            Thread.sleep(100);
+            releaseLoader.countDown();
+
+            assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldExecuteAgainOnceThePreviousCallCompleted() {
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("page-0", () -> String.valueOf(executions.incrementAndGet()));
+        String result = singleFlight.execute("page-0", () -> String.valueOf(executions.incrementAndGet()));
+
+        assertEquals("2", result);
+    }
+
+    @Test
+    void shouldPropagateExceptionOfTheLoader() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("page-0", () -> {
+            throw new IllegalStateException("failure");
+        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package pl.radoslawornat.service.duplicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import pl.radoslawornat.cache.LocalQuotationInvalidationBus;
+import pl.radoslawornat.model.Author;
+import pl.radoslawornat.model.event.QuotationChangedEvent;
+import pl.radoslawornat.model.response.QuotationResource;
+import pl.radoslawornat.repository.QuotationRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class NearDuplicateDetectorTest {
+
+    private static final String CONTENT =
+            "Success is not final, failure is not fatal: it is the courage to continue that counts.";
+    private static final Author AUTHOR = new Author("Winston", "Churchill");
+
+    QuotationRepository quotationRepository = mock(QuotationRepository.class);
+
+    NearDuplicateDetector nearDuplicateDetector =
+            new NearDuplicateDetector(quotationRepository, new LocalQuotationInvalidationBus(), true, 0.8);
+
+    @Test
+    void shouldIndexQuotationSavedOnAnotherNode() {
+        QuotationResource quotation = new QuotationResource("1", CONTENT, "Winston", "Churchill");
+        when(quotationRepository.findQuotationResourcesByIdIn(List.of("1"))).thenReturn(List.of(quotation));
+
+        nearDuplicateDetector.onInvalidate("1", 0);
+
+        assertEquals(Optional.of("1"), nearDuplicateDetector.findNearDuplicate(CONTENT + "!", AUTHOR));
+    }
+
+    @Test
+    void shouldRemoveQuotationDeletedOnAnotherNode() {
+        QuotationResource quotation = new QuotationResource("1", CONTENT, "Winston", "Churchill");
+        nearDuplicateDetector.onQuotationChanged(QuotationChangedEvent.created(quotation, 0));
+        when(quotationRepository.findQuotationResourcesByIdIn(List.of("1"))).thenReturn(List.of());
+
+        nearDuplicateDetector.onInvalidate("1", QuotationChangedEvent.DELETED_VERSION);
+
+        assertTrue(nearDuplicateDetector.findNearDuplicate(CONTENT, AUTHOR).isEmpty());
+    }
+
+    @Test
+    void shouldNotKeepQuotationDeletedWhileIndexIsBuilt() {
+        QuotationResource quotation = new QuotationResource("1", CONTENT, "Winston", "Churchill");
+        when(quotationRepository.findQuotationResourcesAfter(anyString(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    nearDuplicateDetector.onQuotationChanged(QuotationChangedEvent.deleted("1"));
+                    return List.of(quotation);
+                });
+        when(quotationRepository.findQuotationResourcesByIdIn(List.of("1"))).thenReturn(List.of());
+
+        nearDuplicateDetector.build();
+
+        assertTrue(nearDuplicateDetector.findNearDuplicate(CONTENT, AUTHOR).isEmpty());
+        verify(quotationRepository).findQuotationResourcesByIdIn(List.of("1"));
+    }
+}
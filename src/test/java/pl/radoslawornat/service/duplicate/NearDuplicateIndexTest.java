@@ -0,0 +1,74 @@
+package pl.radoslawornat.service.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest {
+
+    private static final String CONTENT =
+            "Success is not final, failure is not fatal: it is the courage to continue that counts.";
+
+    NearDuplicateIndex nearDuplicateIndex = new NearDuplicateIndex(0.8);
+
+    @Test
+    void shouldFindQuotationDifferingOnlyInPunctuationCaseAndWhitespace() {
+        nearDuplicateIndex.put("1", CONTENT, "Winston", "Churchill");
+
+        Optional<String> nearDuplicate = nearDuplicateIndex.findNearDuplicate(
+                "success is not final -  failure is NOT fatal; it is the courage to continue that counts",
+                "Winston", "Churchill");
+
+        assertEquals(Optional.of("1"), nearDuplicate);
+    }
+
+    @Test
+    void shouldFindQuotationWithTypo() {
+        nearDuplicateIndex.put("1", CONTENT, "Winston", "Churchill");
+
+        assertTrue(nearDuplicateIndex.findNearDuplicate(
+                "Success is not final, failure is not fatal: it is the courrage to continue that counts.",
+                "Winston", "Churchill").isPresent());
+    }
+
+    @Test
+    void shouldNotFindQuotationOfAnotherAuthor() {
+        nearDuplicateIndex.put("1", CONTENT, "Winston", "Churchill");
+
+        assertTrue(nearDuplicateIndex.findNearDuplicate(CONTENT, "Albert", "Einstein").isEmpty());
+    }
+
+    @Test
+    void shouldNotFindDissimilarQuotation() {
+        nearDuplicateIndex.put("1", CONTENT, "Winston", "Churchill");
+
+        assertTrue(nearDuplicateIndex.findNearDuplicate(
+                "We shall fight on the beaches, we shall fight on the landing grounds.",
+                "Winston", "Churchill").isEmpty());
+    }
+
+    @Test
+    void shouldFollowUpdatesAndRemovals() {
+        nearDuplicateIndex.put("1", CONTENT, "Winston", "Churchill");
+        nearDuplicateIndex.put("1", "We shall never surrender.", "Winston", "Churchill");
+
+        assertTrue(nearDuplicateIndex.findNearDuplicate(CONTENT, "Winston", "Churchill").isEmpty());
+        assertEquals(Optional.of("1"),
+                nearDuplicateIndex.findNearDuplicate("We shall NEVER surrender!", "Winston", "Churchill"));
+
+        nearDuplicateIndex.remove("1");
+
+        assertTrue(nearDuplicateIndex.findNearDuplicate("We shall never surrender.", "Winston", "Churchill").isEmpty());
+        assertEquals(0, nearDuplicateIndex.size());
+    }
+
+    @Test
+    void shouldEstimateSimilarityOfIdenticalNormalizedContentAsOne() {
+        assertEquals("it is the courage", NearDuplicateIndex.normalize("  It is, the COURAGE!  "));
+        assertEquals(1.0, NearDuplicateIndex.similarity(
+                NearDuplicateIndex.signature("It is the courage."),
+                NearDuplicateIndex.signature("it is -- the courage")));
+    }
+}